@@ -0,0 +1,112 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionRegistry;
+
+import de.fhg.igd.eclipse.util.benchmark.BenchmarkElementExtension.BenchmarkElement;
+import de.fhg.igd.eclipse.util.extension.simple.IdentifiableExtension;
+
+/**
+ * Identifiable extension for the benchmark extension point of a local
+ * registry
+ * @author Simon Templer
+ */
+public class BenchmarkElementExtension extends IdentifiableExtension<BenchmarkElement> {
+	
+	/**
+	 * Element representing a benchmark configuration element
+	 */
+	public static class BenchmarkElement implements Identifiable {
+		
+		private final String id;
+		
+		private final String name;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param id the element ID
+		 * @param name the element name
+		 */
+		public BenchmarkElement(String id, String name) {
+			super();
+			this.id = id;
+			this.name = name;
+		}
+		
+		/**
+		 * @see Identifiable#getId()
+		 */
+		@Override
+		public String getId() {
+			return id;
+		}
+		
+		/**
+		 * @return the element name
+		 */
+		public String getName() {
+			return name;
+		}
+	
+	}
+	
+	private final IExtensionRegistry registry;
+	
+	/**
+	 * Create the extension
+	 * 
+	 * @param registry the registry created with
+	 *   {@link BenchmarkRegistry#create(int)}
+	 */
+	public BenchmarkElementExtension(IExtensionRegistry registry) {
+		super(BenchmarkRegistry.POINT_ID);
+		
+		this.registry = registry;
+	}
+	
+	/**
+	 * @see IdentifiableExtension#getExtensionRegistry()
+	 */
+	@Override
+	protected IExtensionRegistry getExtensionRegistry() {
+		return registry;
+	}
+	
+	/**
+	 * @see IdentifiableExtension#getIdAttributeName()
+	 */
+	@Override
+	protected String getIdAttributeName() {
+		return "id"; //$NON-NLS-1$
+	}
+	
+	/**
+	 * @see IdentifiableExtension#create(String, IConfigurationElement)
+	 */
+	@Override
+	protected BenchmarkElement create(String elementId,
+			IConfigurationElement element) {
+		return new BenchmarkElement(elementId, element.getAttribute("name")); //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,136 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.eclipse.core.runtime.IContributor;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.RegistryFactory;
+import org.eclipse.core.runtime.spi.RegistryContributor;
+import org.eclipse.core.runtime.spi.RegistryStrategy;
+
+/**
+ * <p>Title: BenchmarkRegistry</p>
+ * <p>Description: Creates local extension registries populated with a
+ * given number of contributions to the benchmark extension point. Every
+ * contribution is made by its own contributor and defines one factory
+ * element.</p>
+ * @author Simon Templer
+ */
+public abstract class BenchmarkRegistry {
+	
+	/**
+	 * Name of the contributor declaring the extension point
+	 */
+	public static final String NAMESPACE = "bench"; //$NON-NLS-1$
+	
+	/**
+	 * The benchmark extension point ID
+	 */
+	public static final String POINT_ID = NAMESPACE + ".factories"; //$NON-NLS-1$
+	
+	/**
+	 * The number of distinct factory categories
+	 */
+	public static final int CATEGORIES = 4;
+	
+	private static final Object TOKEN = new Object();
+	
+	/**
+	 * Create a registry with the given number of contributions
+	 * 
+	 * @param contributions the number of contributions
+	 * @return the populated extension registry
+	 */
+	public static IExtensionRegistry create(int contributions) {
+		IExtensionRegistry registry = RegistryFactory.createRegistry(
+				new RegistryStrategy(null, null), TOKEN, TOKEN);
+		
+		add(registry, NAMESPACE, "<plugin><extension-point id=\"factories\" name=\"Benchmark factories\"/></plugin>"); //$NON-NLS-1$
+		
+		for (int i = 0; i < contributions; i++) {
+			StringBuilder xml = new StringBuilder();
+			xml.append("<plugin><extension point=\"").append(POINT_ID).append("\">"); //$NON-NLS-1$ //$NON-NLS-2$
+			xml.append("<factory id=\"").append(getFactoryId(i)); //$NON-NLS-1$
+			xml.append("\" name=\"Factory ").append(i); //$NON-NLS-1$
+			xml.append("\" priority=\"").append(i % 10); //$NON-NLS-1$
+			xml.append("\" category=\"").append(getCategory(i)); //$NON-NLS-1$
+			xml.append("\" class=\"").append(BenchmarkObject.class.getName()); //$NON-NLS-1$
+			xml.append("\"/></extension></plugin>"); //$NON-NLS-1$
+			
+			add(registry, NAMESPACE + ".contributor" + i, xml.toString()); //$NON-NLS-1$
+		}
+		
+		return registry;
+	}
+	
+	/**
+	 * Stop a registry created with {@link #create(int)}
+	 * 
+	 * @param registry the extension registry
+	 */
+	public static void dispose(IExtensionRegistry registry) {
+		registry.stop(TOKEN);
+	}
+	
+	/**
+	 * Get the ID of the factory with the given index
+	 * 
+	 * @param index the factory index
+	 * @return the factory ID
+	 */
+	public static String getFactoryId(int index) {
+		return "factory." + index; //$NON-NLS-1$
+	}
+	
+	/**
+	 * Get the category of the factory with the given index
+	 * 
+	 * @param index the factory index
+	 * @return the factory category
+	 */
+	public static String getCategory(int index) {
+		return "category" + (index % CATEGORIES); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Add a contribution to the registry
+	 * 
+	 * @param registry the extension registry
+	 * @param contributorName the contributor name
+	 * @param xml the contribution XML
+	 */
+	private static void add(IExtensionRegistry registry, String contributorName,
+			String xml) {
+		IContributor contributor = new RegistryContributor(contributorName,
+				contributorName, null, null);
+		try {
+			if (!registry.addContribution(new ByteArrayInputStream(xml.getBytes("UTF-8")), //$NON-NLS-1$
+					contributor, false, contributorName, null, TOKEN)) {
+				throw new IllegalStateException("Adding contribution failed: " + contributorName); //$NON-NLS-1$
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import de.fhg.igd.eclipse.util.extension.ExtensionObjectFactoryCollection;
+import de.fhg.igd.eclipse.util.extension.FactoryFilter;
+
+/**
+ * Filter accepting the benchmark factories of a category
+ * @author Simon Templer
+ */
+public class CategoryFilter implements FactoryFilter<Object, BenchmarkFactory> {
+	
+	private final String category;
+	
+	/**
+	 * Create a filter for the given category
+	 * 
+	 * @param category the factory category
+	 */
+	public CategoryFilter(String category) {
+		super();
+		this.category = category;
+	}
+	
+	/**
+	 * @see FactoryFilter#acceptFactory(de.fhg.igd.eclipse.util.extension.ExtensionObjectFactory)
+	 */
+	@Override
+	public boolean acceptFactory(BenchmarkFactory factory) {
+		return category.equals(factory.getCategory());
+	}
+	
+	/**
+	 * @see FactoryFilter#acceptCollection(ExtensionObjectFactoryCollection)
+	 */
+	@Override
+	public boolean acceptCollection(
+			ExtensionObjectFactoryCollection<Object, BenchmarkFactory> collection) {
+		return true;
+	}
+
+}
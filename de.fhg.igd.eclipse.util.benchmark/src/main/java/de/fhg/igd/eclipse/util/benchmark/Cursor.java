@@ -0,0 +1,48 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per thread position for benchmarks cycling through the contributions
+ * @author Simon Templer
+ */
+@State(Scope.Thread)
+public class Cursor {
+	
+	private int position;
+	
+	/**
+	 * Advance the cursor
+	 * 
+	 * @param size the number of positions
+	 * @return the next position
+	 */
+	public int next(int size) {
+		position++;
+		if (position >= size) {
+			position = 0;
+		}
+		return position;
+	}
+
+}
@@ -0,0 +1,131 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fhg.igd.eclipse.util.extension.exclusive.AbstractExclusiveExtension;
+
+/**
+ * Benchmarks switching the current object of an exclusive extension
+ * @author Simon Templer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExclusiveExtensionBenchmark {
+	
+	/**
+	 * Exclusive extension starting with the first factory
+	 */
+	private static class Exclusive extends AbstractExclusiveExtension<Object, BenchmarkFactory> {
+		
+		/**
+		 * @see AbstractExclusiveExtension#AbstractExclusiveExtension(de.fhg.igd.eclipse.util.extension.ObjectExtension)
+		 */
+		public Exclusive(BenchmarkExtension extension) {
+			super(extension);
+		}
+		
+		/**
+		 * @see AbstractExclusiveExtension#getInitialFactory()
+		 */
+		@Override
+		protected BenchmarkFactory getInitialFactory() {
+			return getFactories().get(0);
+		}
+	
+	}
+	
+	/**
+	 * The number of contributions to the extension point
+	 */
+	@Param({"10", "100", "1000", "10000"})
+	public int contributions;
+	
+	private IExtensionRegistry registry;
+	
+	private Exclusive exclusive;
+	
+	private List<BenchmarkFactory> factories;
+	
+	private String[] ids;
+	
+	/**
+	 * Populate the registry and initialize the exclusive extension
+	 */
+	@Setup
+	public void setup() {
+		registry = BenchmarkRegistry.create(contributions);
+		exclusive = new Exclusive(new BenchmarkExtension(registry));
+		exclusive.getCurrent();
+		
+		factories = exclusive.getFactories();
+		ids = new String[contributions];
+		for (int i = 0; i < contributions; i++) {
+			ids[i] = BenchmarkRegistry.getFactoryId(i);
+		}
+	}
+	
+	/**
+	 * Stop the registry
+	 */
+	@TearDown
+	public void tearDown() {
+		BenchmarkRegistry.dispose(registry);
+	}
+	
+	/**
+	 * @param cursor the position of the next factory
+	 * @return if switching succeeded
+	 */
+	@Benchmark
+	public boolean switchCurrent(Cursor cursor) {
+		return exclusive.setCurrent(factories.get(cursor.next(factories.size())));
+	}
+	
+	/**
+	 * @param cursor the position of the next ID
+	 * @return if switching succeeded
+	 */
+	@Benchmark
+	public boolean switchCurrentById(Cursor cursor) {
+		return exclusive.setCurrent(ids[cursor.next(ids.length)]);
+	}
+
+}
@@ -0,0 +1,113 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fhg.igd.eclipse.util.benchmark.BenchmarkElementExtension.BenchmarkElement;
+
+/**
+ * Benchmarks listing and ID lookup of a {@link BenchmarkElementExtension}
+ * @author Simon Templer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentifiableExtensionBenchmark {
+	
+	/**
+	 * The number of contributions to the extension point
+	 */
+	@Param({"10", "100", "1000", "10000"})
+	public int contributions;
+	
+	private IExtensionRegistry registry;
+	
+	private BenchmarkElementExtension extension;
+	
+	private String[] ids;
+	
+	/**
+	 * Populate the registry
+	 */
+	@Setup
+	public void setup() {
+		registry = BenchmarkRegistry.create(contributions);
+		extension = new BenchmarkElementExtension(registry);
+		extension.getElements();
+		
+		ids = new String[contributions];
+		for (int i = 0; i < contributions; i++) {
+			ids[i] = BenchmarkRegistry.getFactoryId(i);
+		}
+	}
+	
+	/**
+	 * Stop the registry
+	 */
+	@TearDown
+	public void tearDown() {
+		BenchmarkRegistry.dispose(registry);
+	}
+	
+	/**
+	 * @return all elements
+	 */
+	@Benchmark
+	public Collection<BenchmarkElement> listElements() {
+		return extension.getElements();
+	}
+	
+	/**
+	 * @param cursor the position of the next ID
+	 * @return the element with the next ID
+	 */
+	@Benchmark
+	public BenchmarkElement lookupElement(Cursor cursor) {
+		return extension.get(ids[cursor.next(ids.length)]);
+	}
+	
+	/**
+	 * @return <code>null</code>, the ID is not contributed
+	 */
+	@Benchmark
+	public BenchmarkElement lookupMissingElement() {
+		return extension.get("missing"); //$NON-NLS-1$
+	}
+
+}
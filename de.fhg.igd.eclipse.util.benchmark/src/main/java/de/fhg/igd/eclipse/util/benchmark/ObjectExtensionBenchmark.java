@@ -0,0 +1,146 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fhg.igd.eclipse.util.extension.FactoryView;
+
+/**
+ * Benchmarks listing, ID lookup and filtered queries of an
+ * {@link BenchmarkExtension}
+ * @author Simon Templer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectExtensionBenchmark {
+	
+	/**
+	 * The number of contributions to the extension point
+	 */
+	@Param({"10", "100", "1000", "10000"})
+	public int contributions;
+	
+	private IExtensionRegistry registry;
+	
+	private BenchmarkExtension extension;
+	
+	private String[] ids;
+	
+	private CategoryFilter filter;
+	
+	private FactoryView<Object, BenchmarkFactory> view;
+	
+	/**
+	 * Populate the registry and create the factory snapshot
+	 */
+	@Setup
+	public void setup() {
+		registry = BenchmarkRegistry.create(contributions);
+		extension = new BenchmarkExtension(registry);
+		extension.getFactories();
+		
+		ids = new String[contributions];
+		for (int i = 0; i < contributions; i++) {
+			ids[i] = BenchmarkRegistry.getFactoryId(i);
+		}
+		
+		filter = new CategoryFilter(BenchmarkRegistry.getCategory(0));
+		// the view uses its own filter instance, so filter is not served by it
+		view = extension.getView(new CategoryFilter(BenchmarkRegistry.getCategory(0)));
+	}
+	
+	/**
+	 * Stop the registry
+	 */
+	@TearDown
+	public void tearDown() {
+		BenchmarkRegistry.dispose(registry);
+	}
+	
+	/**
+	 * @return all factories
+	 */
+	@Benchmark
+	public List<BenchmarkFactory> listFactories() {
+		return extension.getFactories();
+	}
+	
+	/**
+	 * @param cursor the position of the next ID
+	 * @return the factory with the next ID
+	 */
+	@Benchmark
+	public BenchmarkFactory lookupFactory(Cursor cursor) {
+		return extension.getFactory(ids[cursor.next(ids.length)]);
+	}
+	
+	/**
+	 * @return <code>null</code>, the ID is not contributed
+	 */
+	@Benchmark
+	public BenchmarkFactory lookupMissingFactory() {
+		return extension.getFactory("missing"); //$NON-NLS-1$
+	}
+	
+	/**
+	 * @return the factories of a category
+	 */
+	@Benchmark
+	public List<BenchmarkFactory> filterFactories() {
+		return extension.getFactories(filter);
+	}
+	
+	/**
+	 * @return the number of factories of a category
+	 */
+	@Benchmark
+	public int countFactories() {
+		return extension.countFactories(filter);
+	}
+	
+	/**
+	 * @return the factories of a category as cached by a view
+	 */
+	@Benchmark
+	public List<BenchmarkFactory> filterFactoriesView() {
+		return view.getFactories();
+	}
+
+}
@@ -0,0 +1,127 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fhg.igd.eclipse.util.extension.selective.AbstractSelectiveExtension;
+
+/**
+ * Benchmarks activating and deactivating all factories of a selective
+ * extension
+ * @author Simon Templer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectiveExtensionBenchmark {
+	
+	/**
+	 * Selective extension with no factories active initially
+	 */
+	private static class Selective extends AbstractSelectiveExtension<Object, BenchmarkFactory> {
+		
+		/**
+		 * @see AbstractSelectiveExtension#AbstractSelectiveExtension(de.fhg.igd.eclipse.util.extension.ObjectExtension)
+		 */
+		public Selective(BenchmarkExtension extension) {
+			super(extension);
+		}
+		
+		/**
+		 * @see AbstractSelectiveExtension#activateOnInit(de.fhg.igd.eclipse.util.extension.ExtensionObjectFactory)
+		 */
+		@Override
+		protected boolean activateOnInit(BenchmarkFactory factory) {
+			return false;
+		}
+	
+	}
+	
+	/**
+	 * The number of contributions to the extension point
+	 */
+	@Param({"10", "100", "1000", "10000"})
+	public int contributions;
+	
+	private IExtensionRegistry registry;
+	
+	private Selective selective;
+	
+	private List<BenchmarkFactory> factories;
+	
+	/**
+	 * Populate the registry and initialize the selective extension
+	 */
+	@Setup
+	public void setup() {
+		registry = BenchmarkRegistry.create(contributions);
+		selective = new Selective(new BenchmarkExtension(registry));
+		selective.getActiveObjects();
+		
+		factories = selective.getFactories();
+	}
+	
+	/**
+	 * Stop the registry
+	 */
+	@TearDown
+	public void tearDown() {
+		BenchmarkRegistry.dispose(registry);
+	}
+	
+	/**
+	 * Activate all factories, then deactivate them again
+	 * 
+	 * @return the number of activated factories
+	 */
+	@Benchmark
+	public int activateAll() {
+		int activated = 0;
+		for (BenchmarkFactory factory : factories) {
+			if (selective.activate(factory)) {
+				activated++;
+			}
+		}
+		for (BenchmarkFactory factory : factories) {
+			selective.deactivate(factory);
+		}
+		return activated;
+	}
+
+}
@@ -0,0 +1,195 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * <p>Title: AbstractExtensionAsyncTest</p>
+ * <p>Description: Tests for the asynchronous queries of
+ * {@link AbstractExtension}</p>
+ * @author Simon Templer
+ */
+public class AbstractExtensionAsyncTest {
+	
+	/**
+	 * The number of contributions to the test extension point
+	 */
+	private static final int CONTRIBUTIONS = 50;
+	
+	/**
+	 * Seconds to wait for a query result
+	 */
+	private static final long TIMEOUT = 30;
+	
+	private IExtensionRegistry registry;
+	
+	/**
+	 * Create the test registry
+	 */
+	@Before
+	public void setUp() {
+		registry = TestRegistry.create(CONTRIBUTIONS);
+	}
+	
+	/**
+	 * Dispose the test registry
+	 */
+	@After
+	public void tearDown() {
+		TestRegistry.dispose(registry);
+	}
+	
+	/**
+	 * Test that asynchronous queries of more extensions building their
+	 * snapshot in parallel than there are pool threads complete
+	 * 
+	 * @throws Exception if waiting for a query fails or times out
+	 */
+	@Test
+	public void testParallelBuildAsync() throws Exception {
+		int count = Runtime.getRuntime().availableProcessors() + 1;
+		
+		List<ListenableFuture<List<TestFactory>>> futures = new ArrayList<ListenableFuture<List<TestFactory>>>();
+		for (int i = 0; i < count; i++) {
+			TestExtension extension = new TestExtension(registry);
+			extension.setParallelBuild(true);
+			futures.add(extension.getFactoriesAsync(null, null));
+		}
+		
+		for (ListenableFuture<List<TestFactory>> future : futures) {
+			assertEquals(CONTRIBUTIONS, future.get(TIMEOUT, TimeUnit.SECONDS).size());
+		}
+	}
+	
+	/**
+	 * Test that asynchronous queries issued from pool threads while building
+	 * in parallel complete
+	 * 
+	 * @throws Exception if waiting for a query fails or times out
+	 */
+	@Test
+	public void testNestedAsync() throws Exception {
+		int count = Runtime.getRuntime().availableProcessors() + 1;
+		
+		final List<TestExtension> nested = new ArrayList<TestExtension>();
+		for (int i = 0; i < count; i++) {
+			TestExtension extension = new TestExtension(registry);
+			extension.setParallelBuild(true);
+			nested.add(extension);
+		}
+		
+		TestExtension outer = new TestExtension(registry) {
+			
+			@Override
+			protected TestFactory createFactory(IConfigurationElement conf)
+					throws Exception {
+				// query another extension while building and wait for it
+				int index = Math.abs(conf.getAttribute("id").hashCode()) % nested.size(); //$NON-NLS-1$
+				nested.get(index).getFactoriesAsync(null, null).get(TIMEOUT, TimeUnit.SECONDS);
+				return super.createFactory(conf);
+			}
+		
+		};
+		outer.setParallelBuild(true);
+		
+		assertEquals(CONTRIBUTIONS, outer.getFactoriesAsync(null, null)
+				.get(TIMEOUT * 2, TimeUnit.SECONDS).size());
+	}
+
+	
+	/**
+	 * Test that pending asynchronous queries share a single snapshot
+	 * creation
+	 * 
+	 * @throws Exception if waiting for a query fails or times out
+	 */
+	@Test
+	public void testSharedCreation() throws Exception {
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		Executor executor = new Executor() {
+			
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		
+		};
+		
+		TestExtension extension = new TestExtension(registry);
+		List<ListenableFuture<List<TestFactory>>> futures = new ArrayList<ListenableFuture<List<TestFactory>>>();
+		for (int i = 0; i < 4; i++) {
+			futures.add(extension.getFactoriesAsync(null, executor));
+		}
+		ListenableFuture<TestFactory> single = extension.getFactoryAsync("factory.0", executor); //$NON-NLS-1$
+		
+		assertEquals(futures.size() + 1, tasks.size());
+		assertFalse(single.isDone());
+		assertEquals(0, extension.getCreatedCount());
+		
+		// run the queries concurrently
+		final CountDownLatch ready = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (final Runnable task : tasks) {
+			Thread thread = new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					try {
+						ready.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					task.run();
+				}
+			
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		ready.countDown();
+		
+		for (ListenableFuture<List<TestFactory>> future : futures) {
+			assertEquals(CONTRIBUTIONS, future.get(TIMEOUT, TimeUnit.SECONDS).size());
+		}
+		assertEquals("factory.0", single.get(TIMEOUT, TimeUnit.SECONDS).getIdentifier()); //$NON-NLS-1$
+		assertEquals(CONTRIBUTIONS, extension.getCreatedCount());
+		
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+}
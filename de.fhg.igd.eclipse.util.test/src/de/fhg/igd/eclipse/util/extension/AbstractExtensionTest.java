@@ -0,0 +1,262 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Title: AbstractExtensionTest</p>
+ * <p>Description: Tests for the factory snapshot of
+ * {@link AbstractExtension} and its updates on registry changes</p>
+ * @author Simon Templer
+ */
+public class AbstractExtensionTest {
+	
+	/**
+	 * The number of contributions to the test extension point
+	 */
+	private static final int CONTRIBUTIONS = 10;
+	
+	/**
+	 * Milliseconds to wait for a registry change to be processed
+	 */
+	private static final long TIMEOUT = 10000;
+	
+	private IExtensionRegistry registry;
+	
+	private TestExtension extension;
+	
+	/**
+	 * Create the test registry and extension
+	 */
+	@Before
+	public void setUp() {
+		registry = TestRegistry.create(CONTRIBUTIONS);
+		extension = new TestExtension(registry);
+	}
+	
+	/**
+	 * Dispose the test registry
+	 */
+	@After
+	public void tearDown() {
+		TestRegistry.dispose(registry);
+	}
+	
+	/**
+	 * Test that only the factories of added extensions are created and
+	 * the factories of removed extensions are dropped
+	 */
+	@Test
+	public void testAddRemove() {
+		assertEquals(CONTRIBUTIONS, extension.getFactories().size());
+		assertEquals(CONTRIBUTIONS, extension.getCreatedCount());
+		TestFactory kept = extension.getFactory("factory.1"); //$NON-NLS-1$
+		
+		long version = extension.getVersion();
+		TestRegistry.addFactories(registry, TestRegistry.getContributorName(CONTRIBUTIONS),
+				"added"); //$NON-NLS-1$
+		version = awaitChange(version);
+		
+		assertEquals(CONTRIBUTIONS + 1, extension.getFactories().size());
+		assertEquals(CONTRIBUTIONS + 1, extension.getCreatedCount());
+		assertNotNull(extension.getFactory("added")); //$NON-NLS-1$
+		assertSame(kept, extension.getFactory("factory.1")); //$NON-NLS-1$
+		
+		TestRegistry.removeFactories(registry, TestRegistry.getContributorName(0));
+		awaitChange(version);
+		
+		List<TestFactory> factories = extension.getFactories();
+		assertEquals(CONTRIBUTIONS, factories.size());
+		assertEquals(CONTRIBUTIONS + 1, extension.getCreatedCount());
+		assertNull(extension.getFactory("factory.0")); //$NON-NLS-1$
+		assertTrue(factories.contains(kept));
+	}
+	
+	/**
+	 * Test that an ID remembered as missing is found once an extension
+	 * providing it is added
+	 */
+	@Test
+	public void testMissingInvalidation() {
+		extension.getFactories();
+		assertNull(extension.getFactory("late")); //$NON-NLS-1$
+		assertNull(extension.getFactory("late")); //$NON-NLS-1$
+		
+		long version = extension.getVersion();
+		TestRegistry.addFactories(registry, TestRegistry.getContributorName(CONTRIBUTIONS),
+				"late"); //$NON-NLS-1$
+		awaitChange(version);
+		
+		assertNotNull(extension.getFactory("late")); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Test that an ID not resolved before the snapshot was created is not
+	 * remembered as missing
+	 */
+	@Test
+	public void testMissingBeforeSnapshot() {
+		assertNull(extension.getFactory("late")); //$NON-NLS-1$
+		
+		long version = extension.getVersion();
+		TestRegistry.addFactories(registry, TestRegistry.getContributorName(CONTRIBUTIONS),
+				"late"); //$NON-NLS-1$
+		awaitChange(version);
+		
+		assertNotNull(extension.getFactory("late")); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Test that a failing factory is quarantined with increasing delays and
+	 * added to the snapshot once it can be created
+	 */
+	@Test
+	public void testQuarantine() {
+		extension.setFailing("factory.0", true); //$NON-NLS-1$
+		
+		long start = System.currentTimeMillis();
+		assertEquals(CONTRIBUTIONS - 1, extension.getFactories().size());
+		List<QuarantinedContribution> quarantined = extension.getQuarantinedContributions();
+		assertEquals(1, quarantined.size());
+		assertEquals("factory.0", quarantined.get(0).getIdentifier()); //$NON-NLS-1$
+		assertEquals(1, quarantined.get(0).getFailures());
+		assertTrue(quarantined.get(0).getNextRetry() >= start + ElementQuarantine.INITIAL_BACKOFF);
+		
+		// blocked until the retry is due
+		assertNull(extension.getFactory("factory.0")); //$NON-NLS-1$
+		assertEquals(1, extension.getQuarantinedContributions().get(0).getFailures());
+		
+		// the delay doubles with each failure
+		start = System.currentTimeMillis();
+		extension.retryQuarantinedContributions();
+		quarantined = extension.getQuarantinedContributions();
+		assertEquals(2, quarantined.get(0).getFailures());
+		assertTrue(quarantined.get(0).getNextRetry() >= start + 2 * ElementQuarantine.INITIAL_BACKOFF);
+		
+		extension.setFailing("factory.0", false); //$NON-NLS-1$
+		long version = extension.getVersion();
+		extension.retryQuarantinedContributions();
+		assertTrue(extension.getQuarantinedContributions().isEmpty());
+		assertTrue(extension.getVersion() > version);
+		assertEquals(CONTRIBUTIONS, extension.getFactories().size());
+		assertNotNull(extension.getFactory("factory.0")); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Test that a quarantined factory is released when its contributor
+	 * is reloaded
+	 */
+	@Test
+	public void testQuarantineReload() {
+		extension.setFailing("factory.0", true); //$NON-NLS-1$
+		assertEquals(CONTRIBUTIONS - 1, extension.getFactories().size());
+		
+		extension.setFailing("factory.0", false); //$NON-NLS-1$
+		extension.reload(TestRegistry.getContributorName(0));
+		
+		assertTrue(extension.getQuarantinedContributions().isEmpty());
+		assertEquals(CONTRIBUTIONS, extension.getFactories().size());
+	}
+	
+	/**
+	 * Test that the factories of an extension overriding the hook for
+	 * creating the factories of a configuration element are those returned
+	 * by the hook
+	 */
+	@Test
+	public void testFactoriesHook() {
+		TestExtension hooked = new TestExtension(registry) {
+			
+			@Override
+			protected List<TestFactory> getFactories(IConfigurationElement conf,
+					FactoryFilter<Object, TestFactory> filter) {
+				if ("factory.0".equals(conf.getAttribute("id"))) { //$NON-NLS-1$ //$NON-NLS-2$
+					return null;
+				}
+				return super.getFactories(conf, filter);
+			}
+		
+		};
+		
+		assertNull(hooked.getFactory("factory.0")); //$NON-NLS-1$
+		assertNotNull(hooked.getFactory("factory.1")); //$NON-NLS-1$
+		assertEquals(CONTRIBUTIONS - 1, hooked.getFactories().size());
+		assertEquals(CONTRIBUTIONS - 1, hooked.getCreatedCount());
+	}
+	
+	/**
+	 * Test that a disposed extension creates its factories again and
+	 * follows registry changes when it is used again
+	 */
+	@Test
+	public void testDispose() {
+		assertEquals(CONTRIBUTIONS, extension.getFactories().size());
+		
+		extension.dispose();
+		assertEquals(CONTRIBUTIONS, extension.getFactories().size());
+		assertEquals(2 * CONTRIBUTIONS, extension.getCreatedCount());
+		
+		long version = extension.getVersion();
+		TestRegistry.addFactories(registry, TestRegistry.getContributorName(CONTRIBUTIONS),
+				"added"); //$NON-NLS-1$
+		awaitChange(version);
+		assertEquals(CONTRIBUTIONS + 1, extension.getFactories().size());
+	}
+	
+	/**
+	 * Wait for the extension to publish a new snapshot, registry change
+	 * events may be delivered asynchronously
+	 * 
+	 * @param version the version of the previous snapshot
+	 * @return the new version
+	 */
+	private long awaitChange(long version) {
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (System.currentTimeMillis() < deadline) {
+			long current = extension.getVersion();
+			if (current != version) {
+				return current;
+			}
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		fail("Registry change was not processed"); //$NON-NLS-1$
+		return version;
+	}
+
+}
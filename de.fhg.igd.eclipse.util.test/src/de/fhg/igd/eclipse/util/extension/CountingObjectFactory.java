@@ -0,0 +1,119 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Title: CountingObjectFactory</p>
+ * <p>Description: Factory creating plain objects that counts the created
+ * and disposed instances. If configuring it requires the instances to be
+ * recreated can be set.</p>
+ * @author Simon Templer
+ */
+public class CountingObjectFactory extends AbstractObjectFactory<Object> {
+	
+	private final AtomicInteger created = new AtomicInteger();
+	
+	private final AtomicInteger disposed = new AtomicInteger();
+	
+	private volatile boolean recreate = false;
+	
+	/**
+	 * Set if {@link #configure()} requires the instances to be recreated
+	 * 
+	 * @param recreate if instances have to be recreated after configuring
+	 */
+	public void setRecreate(boolean recreate) {
+		this.recreate = recreate;
+	}
+	
+	/**
+	 * @return the number of created instances
+	 */
+	public int getCreatedCount() {
+		return created.get();
+	}
+	
+	/**
+	 * @return the number of disposed instances
+	 */
+	public int getDisposedCount() {
+		return disposed.get();
+	}
+	
+	/**
+	 * @see ExtensionObjectFactory#createExtensionObject()
+	 */
+	@Override
+	public Object createExtensionObject() throws Exception {
+		created.incrementAndGet();
+		return new Object();
+	}
+	
+	/**
+	 * @see ExtensionObjectFactory#dispose(Object)
+	 */
+	@Override
+	public void dispose(Object instance) {
+		disposed.incrementAndGet();
+	}
+	
+	/**
+	 * @see AbstractObjectFactory#allowConfigure()
+	 */
+	@Override
+	public boolean allowConfigure() {
+		return true;
+	}
+	
+	/**
+	 * @see AbstractObjectFactory#configure()
+	 */
+	@Override
+	public boolean configure() {
+		return recreate;
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getIdentifier()
+	 */
+	@Override
+	public String getIdentifier() {
+		return "counting"; //$NON-NLS-1$
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getDisplayName()
+	 */
+	@Override
+	public String getDisplayName() {
+		return "Counting"; //$NON-NLS-1$
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getTypeName()
+	 */
+	@Override
+	public String getTypeName() {
+		return Object.class.getName();
+	}
+
+}
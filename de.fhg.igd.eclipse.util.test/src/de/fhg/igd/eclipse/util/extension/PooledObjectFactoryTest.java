@@ -0,0 +1,169 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Title: PooledObjectFactoryTest</p>
+ * <p>Description: Tests for {@link PooledObjectFactory}</p>
+ * @author Simon Templer
+ */
+public class PooledObjectFactoryTest {
+	
+	private CountingObjectFactory delegate;
+	
+	private PooledObjectFactory<Object> pool;
+	
+	/**
+	 * Create the pool
+	 */
+	@Before
+	public void setUp() {
+		delegate = new CountingObjectFactory();
+		pool = new PooledObjectFactory<Object>(delegate, 1);
+	}
+	
+	/**
+	 * Test that returned instances are reused
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	@Test
+	public void testReuse() throws Exception {
+		Object instance = pool.createExtensionObject();
+		assertEquals(1, pool.getStatistics().getActive());
+		pool.dispose(instance);
+		assertEquals(0, pool.getStatistics().getActive());
+		assertEquals(1, pool.getStatistics().getIdle());
+		
+		assertSame(instance, pool.createExtensionObject());
+		assertEquals(1, delegate.getCreatedCount());
+		assertEquals(1, pool.getStatistics().getReused());
+		assertEquals(0, delegate.getDisposedCount());
+	}
+	
+	/**
+	 * Test that instances exceeding the maximum number of idle instances
+	 * are disposed
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	@Test
+	public void testMaxIdle() throws Exception {
+		Object first = pool.createExtensionObject();
+		Object second = pool.createExtensionObject();
+		assertNotSame(first, second);
+		assertEquals(2, pool.getStatistics().getActive());
+		
+		pool.dispose(first);
+		pool.dispose(second);
+		assertEquals(1, pool.getStatistics().getIdle());
+		assertEquals(1, delegate.getDisposedCount());
+		
+		pool.clear();
+		assertEquals(0, pool.getStatistics().getIdle());
+		assertEquals(2, delegate.getDisposedCount());
+	}
+	
+	/**
+	 * Test that instances borrowed before a reconfiguration requiring
+	 * recreation are disposed when they are returned
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	@Test
+	public void testConfigure() throws Exception {
+		Object idle = pool.createExtensionObject();
+		Object borrowed = pool.createExtensionObject();
+		pool.dispose(idle);
+		
+		delegate.setRecreate(true);
+		pool.configure();
+		assertEquals(0, pool.getStatistics().getIdle());
+		assertEquals(1, delegate.getDisposedCount());
+		
+		pool.dispose(borrowed);
+		assertEquals(0, pool.getStatistics().getIdle());
+		assertEquals(2, delegate.getDisposedCount());
+		
+		Object created = pool.createExtensionObject();
+		assertNotSame(idle, created);
+		assertNotSame(borrowed, created);
+		assertEquals(3, delegate.getCreatedCount());
+	}
+	
+	/**
+	 * Test that a reconfiguration not requiring recreation keeps the idle
+	 * instances
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	@Test
+	public void testConfigureKeep() throws Exception {
+		Object instance = pool.createExtensionObject();
+		pool.configure();
+		pool.dispose(instance);
+		
+		assertSame(instance, pool.createExtensionObject());
+		assertEquals(0, delegate.getDisposedCount());
+	}
+	
+	/**
+	 * Test that returning an instance twice neither changes the statistics
+	 * nor disposes the idle instance
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	@Test
+	public void testDoubleDispose() throws Exception {
+		Object instance = pool.createExtensionObject();
+		pool.dispose(instance);
+		pool.dispose(instance);
+		
+		assertEquals(0, pool.getStatistics().getActive());
+		assertEquals(1, pool.getStatistics().getReturned());
+		assertEquals(1, pool.getStatistics().getIdle());
+		assertEquals(0, delegate.getDisposedCount());
+		
+		assertSame(instance, pool.createExtensionObject());
+		assertEquals(1, pool.getStatistics().getActive());
+	}
+	
+	/**
+	 * Test that instances not borrowed from the pool are disposed by the
+	 * wrapped factory
+	 */
+	@Test
+	public void testForeignDispose() {
+		pool.dispose(new Object());
+		
+		assertEquals(0, pool.getStatistics().getActive());
+		assertEquals(0, pool.getStatistics().getReturned());
+		assertEquals(0, pool.getStatistics().getIdle());
+		assertEquals(1, delegate.getDisposedCount());
+	}
+
+}
@@ -0,0 +1,103 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Title: SharedObjectFactoryTest</p>
+ * <p>Description: Tests for {@link SharedObjectFactory}</p>
+ * @author Simon Templer
+ */
+public class SharedObjectFactoryTest {
+	
+	private CountingObjectFactory delegate;
+	
+	private SharedObjectFactory<Object> shared;
+	
+	/**
+	 * Create the shared factory
+	 */
+	@Before
+	public void setUp() {
+		delegate = new CountingObjectFactory();
+		shared = new SharedObjectFactory<Object>(delegate);
+	}
+	
+	/**
+	 * Test that the instance is shared and disposed when the last holder
+	 * releases it
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	@Test
+	public void testReferenceCount() throws Exception {
+		Object first = shared.createExtensionObject();
+		Object second = shared.createExtensionObject();
+		assertSame(first, second);
+		assertEquals(2, shared.getReferenceCount());
+		assertEquals(1, delegate.getCreatedCount());
+		
+		shared.dispose(first);
+		assertEquals(1, shared.getReferenceCount());
+		assertEquals(0, delegate.getDisposedCount());
+		
+		shared.dispose(second);
+		assertEquals(0, shared.getReferenceCount());
+		assertEquals(0, shared.getInstanceCount());
+		assertEquals(1, delegate.getDisposedCount());
+		
+		assertNotSame(first, shared.createExtensionObject());
+		assertEquals(2, delegate.getCreatedCount());
+	}
+	
+	/**
+	 * Test that a reconfiguration requiring recreation provides a new
+	 * instance while the previous one is still held
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	@Test
+	public void testConfigure() throws Exception {
+		Object previous = shared.createExtensionObject();
+		
+		delegate.setRecreate(true);
+		shared.configure();
+		
+		Object current = shared.createExtensionObject();
+		assertNotSame(previous, current);
+		assertEquals(1, shared.getReferenceCount());
+		assertEquals(2, shared.getInstanceCount());
+		
+		shared.dispose(previous);
+		assertEquals(1, delegate.getDisposedCount());
+		assertEquals(1, shared.getInstanceCount());
+		
+		shared.dispose(current);
+		assertEquals(2, delegate.getDisposedCount());
+		assertEquals(0, shared.getInstanceCount());
+	}
+
+}
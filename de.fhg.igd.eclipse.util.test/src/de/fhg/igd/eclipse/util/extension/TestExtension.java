@@ -0,0 +1,108 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionRegistry;
+
+/**
+ * <p>Title: TestExtension</p>
+ * <p>Description: Object extension for the extension point of a
+ * {@link TestRegistry}. Counts the created factories and fails creating
+ * the factories with the IDs marked as failing.</p>
+ * @author Simon Templer
+ */
+public class TestExtension extends AbstractExtension<Object, TestFactory> {
+	
+	private final IExtensionRegistry registry;
+	
+	private final Set<String> failing = Collections.synchronizedSet(new HashSet<String>());
+	
+	private final AtomicInteger created = new AtomicInteger();
+	
+	/**
+	 * Create the extension
+	 * 
+	 * @param registry the registry created with {@link TestRegistry}
+	 */
+	public TestExtension(IExtensionRegistry registry) {
+		super(TestRegistry.POINT_ID);
+		
+		this.registry = registry;
+	}
+	
+	/**
+	 * Set if creating the factory with the given ID fails
+	 * 
+	 * @param id the factory ID
+	 * @param fail if creating the factory should fail
+	 */
+	public void setFailing(String id, boolean fail) {
+		if (fail) {
+			failing.add(id);
+		}
+		else {
+			failing.remove(id);
+		}
+	}
+	
+	/**
+	 * @return the number of factories created
+	 */
+	public int getCreatedCount() {
+		return created.get();
+	}
+	
+	/**
+	 * @see AbstractExtension#getExtensionRegistry()
+	 */
+	@Override
+	protected IExtensionRegistry getExtensionRegistry() {
+		return registry;
+	}
+	
+	/**
+	 * @see AbstractExtension#getIdAttributeName()
+	 */
+	@Override
+	protected String getIdAttributeName() {
+		return "id"; //$NON-NLS-1$
+	}
+	
+	/**
+	 * @see AbstractExtension#createFactory(IConfigurationElement)
+	 */
+	@Override
+	protected TestFactory createFactory(IConfigurationElement conf)
+			throws Exception {
+		String id = conf.getAttribute("id"); //$NON-NLS-1$
+		if (failing.contains(id)) {
+			throw new IllegalStateException("Failing factory " + id); //$NON-NLS-1$
+		}
+		created.incrementAndGet();
+		return new TestFactory(conf);
+	}
+
+}
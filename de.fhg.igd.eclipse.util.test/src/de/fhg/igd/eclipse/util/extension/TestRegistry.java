@@ -0,0 +1,164 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.eclipse.core.runtime.IContributor;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.RegistryFactory;
+import org.eclipse.core.runtime.spi.RegistryContributor;
+import org.eclipse.core.runtime.spi.RegistryStrategy;
+
+/**
+ * <p>Title: TestRegistry</p>
+ * <p>Description: Creates local extension registries for tests, with an
+ * extension point that contributors can add factory elements to and
+ * remove them from.</p>
+ * @author Simon Templer
+ */
+public abstract class TestRegistry {
+	
+	/**
+	 * Name of the contributor declaring the extension point
+	 */
+	public static final String NAMESPACE = "test"; //$NON-NLS-1$
+	
+	/**
+	 * The test extension point ID
+	 */
+	public static final String POINT_ID = NAMESPACE + ".factories"; //$NON-NLS-1$
+	
+	private static final Object TOKEN = new Object();
+	
+	/**
+	 * Create a registry that only declares the extension point
+	 * 
+	 * @return the extension registry
+	 */
+	public static IExtensionRegistry create() {
+		IExtensionRegistry registry = RegistryFactory.createRegistry(
+				new RegistryStrategy(null, null), TOKEN, TOKEN);
+		
+		add(registry, NAMESPACE, "<plugin><extension-point id=\"factories\" name=\"Test factories\"/></plugin>"); //$NON-NLS-1$
+		
+		return registry;
+	}
+	
+	/**
+	 * Create a registry with the given number of contributors, each
+	 * contributing one factory with the ID <code>factory.</code> followed
+	 * by the contributor index
+	 * 
+	 * @param contributions the number of contributions
+	 * @return the extension registry
+	 */
+	public static IExtensionRegistry create(int contributions) {
+		IExtensionRegistry registry = create();
+		for (int i = 0; i < contributions; i++) {
+			addFactories(registry, getContributorName(i), "factory." + i); //$NON-NLS-1$
+		}
+		return registry;
+	}
+	
+	/**
+	 * Stop a registry created with {@link #create()}
+	 * 
+	 * @param registry the extension registry
+	 */
+	public static void dispose(IExtensionRegistry registry) {
+		registry.stop(TOKEN);
+	}
+	
+	/**
+	 * Get the name of the contributor with the given index
+	 * 
+	 * @param index the contributor index
+	 * @return the contributor name
+	 */
+	public static String getContributorName(int index) {
+		return NAMESPACE + ".contributor" + index; //$NON-NLS-1$
+	}
+	
+	/**
+	 * Add an extension with factory elements to the registry
+	 * 
+	 * @param registry the extension registry
+	 * @param contributorName the contributor name
+	 * @param ids the IDs of the factories, the display name is the ID in
+	 *   upper case
+	 */
+	public static void addFactories(IExtensionRegistry registry,
+			String contributorName, String... ids) {
+		StringBuilder xml = new StringBuilder();
+		xml.append("<plugin><extension point=\"").append(POINT_ID).append("\">"); //$NON-NLS-1$ //$NON-NLS-2$
+		for (String id : ids) {
+			xml.append("<factory id=\"").append(id); //$NON-NLS-1$
+			xml.append("\" name=\"").append(id.toUpperCase()); //$NON-NLS-1$
+			xml.append("\" class=\"java.lang.Object\"/>"); //$NON-NLS-1$
+		}
+		xml.append("</extension></plugin>"); //$NON-NLS-1$
+		
+		add(registry, contributorName, xml.toString());
+	}
+	
+	/**
+	 * Remove all extensions of a contributor from the registry
+	 * 
+	 * @param registry the extension registry
+	 * @param contributorName the contributor name
+	 */
+	public static void removeFactories(IExtensionRegistry registry,
+			String contributorName) {
+		IExtensionPoint point = registry.getExtensionPoint(POINT_ID);
+		for (IExtension extension : point.getExtensions()) {
+			if (contributorName.equals(extension.getContributor().getName())) {
+				if (!registry.removeExtension(extension, TOKEN)) {
+					throw new IllegalStateException("Removing extension failed: " + contributorName); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Add a contribution to the registry
+	 * 
+	 * @param registry the extension registry
+	 * @param contributorName the contributor name
+	 * @param xml the contribution XML
+	 */
+	private static void add(IExtensionRegistry registry, String contributorName,
+			String xml) {
+		IContributor contributor = new RegistryContributor(contributorName,
+				contributorName, null, null);
+		try {
+			if (!registry.addContribution(new ByteArrayInputStream(xml.getBytes("UTF-8")), //$NON-NLS-1$
+					contributor, false, contributorName, null, TOKEN)) {
+				throw new IllegalStateException("Adding contribution failed: " + contributorName); //$NON-NLS-1$
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
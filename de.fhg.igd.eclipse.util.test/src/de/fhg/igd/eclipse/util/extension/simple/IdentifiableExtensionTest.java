@@ -0,0 +1,245 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fhg.igd.eclipse.util.extension.TestRegistry;
+import de.fhg.igd.eclipse.util.extension.simple.TestIdentifiableExtension.Element;
+
+/**
+ * <p>Title: IdentifiableExtensionTest</p>
+ * <p>Description: Tests for the element index and cache policies of
+ * {@link IdentifiableExtension}</p>
+ * @author Simon Templer
+ */
+public class IdentifiableExtensionTest {
+	
+	/**
+	 * The number of contributions to the test extension point
+	 */
+	private static final int CONTRIBUTIONS = 10;
+	
+	/**
+	 * Milliseconds to wait for a registry change to be processed
+	 */
+	private static final long TIMEOUT = 10000;
+	
+	private IExtensionRegistry registry;
+	
+	/**
+	 * Create the test registry
+	 */
+	@Before
+	public void setUp() {
+		registry = TestRegistry.create(CONTRIBUTIONS);
+	}
+	
+	/**
+	 * Dispose the test registry
+	 */
+	@After
+	public void tearDown() {
+		TestRegistry.dispose(registry);
+	}
+	
+	/**
+	 * Test that the result of getting all elements is a copy that may be
+	 * modified
+	 */
+	@Test
+	public void testElementsCopy() {
+		TestIdentifiableExtension extension = new TestIdentifiableExtension(registry,
+				ElementCachePolicy.unbounded());
+		
+		Collection<Element> elements = extension.getElements();
+		assertEquals(CONTRIBUTIONS, elements.size());
+		
+		elements.clear();
+		assertEquals(CONTRIBUTIONS, extension.getElements().size());
+		assertEquals(CONTRIBUTIONS, extension.getCreatedCount());
+	}
+	
+	/**
+	 * Test that elements are created once with the unbounded policy
+	 */
+	@Test
+	public void testUnbounded() {
+		TestIdentifiableExtension extension = new TestIdentifiableExtension(registry,
+				ElementCachePolicy.unbounded());
+		
+		Element element = extension.get("factory.1"); //$NON-NLS-1$
+		assertNotNull(element);
+		assertSame(element, extension.get("factory.1")); //$NON-NLS-1$
+		assertEquals(1, extension.getCreatedCount());
+		
+		Collection<Element> elements = extension.getElements();
+		assertEquals(CONTRIBUTIONS, elements.size());
+		assertTrue(elements.contains(element));
+		assertEquals(CONTRIBUTIONS, extension.getCreatedCount());
+		
+		assertEquals(CONTRIBUTIONS, extension.getElements().size());
+		assertEquals(CONTRIBUTIONS, extension.getCreatedCount());
+		
+		IdentifiableExtension.CacheStatistics statistics = extension.getCacheStatistics();
+		assertEquals(CONTRIBUTIONS, statistics.getSize());
+		assertEquals(0, statistics.getEvictions());
+	}
+	
+	/**
+	 * Test that the LRU policy bounds the number of retained elements and
+	 * evicted elements are created again
+	 */
+	@Test
+	public void testLru() {
+		TestIdentifiableExtension extension = new TestIdentifiableExtension(registry,
+				ElementCachePolicy.lru(0));
+		
+		assertNotNull(extension.get("factory.1")); //$NON-NLS-1$
+		assertNotNull(extension.get("factory.1")); //$NON-NLS-1$
+		assertEquals(2, extension.getCreatedCount());
+		
+		IdentifiableExtension.CacheStatistics statistics = extension.getCacheStatistics();
+		assertEquals(0, statistics.getSize());
+		assertEquals(2, statistics.getEvictions());
+		assertEquals(0, statistics.getHits());
+		assertEquals(2, statistics.getMisses());
+		
+		// not cached as the policy is bounded
+		assertEquals(CONTRIBUTIONS, extension.getElements().size());
+		assertEquals(CONTRIBUTIONS, extension.getElements().size());
+		assertEquals(2 + 2 * CONTRIBUTIONS, extension.getCreatedCount());
+	}
+	
+	/**
+	 * Test that elements expire after they were not accessed
+	 * 
+	 * @throws InterruptedException if waiting is interrupted
+	 */
+	@Test
+	public void testExpireAfterAccess() throws InterruptedException {
+		TestIdentifiableExtension extension = new TestIdentifiableExtension(registry,
+				ElementCachePolicy.expireAfterAccess(50, TimeUnit.MILLISECONDS));
+		
+		Element element = extension.get("factory.1"); //$NON-NLS-1$
+		assertSame(element, extension.get("factory.1")); //$NON-NLS-1$
+		assertEquals(1, extension.getCreatedCount());
+		
+		Thread.sleep(200);
+		assertNotNull(extension.get("factory.1")); //$NON-NLS-1$
+		assertEquals(2, extension.getCreatedCount());
+	}
+	
+	/**
+	 * Test that the next element with the same ID is used if an element
+	 * can't be created
+	 */
+	@Test
+	public void testDuplicateIds() {
+		TestRegistry.addFactories(registry, TestRegistry.getContributorName(CONTRIBUTIONS),
+				"factory.1"); //$NON-NLS-1$
+		TestIdentifiableExtension extension = new TestIdentifiableExtension(registry,
+				ElementCachePolicy.unbounded());
+		
+		extension.setFailing(TestRegistry.getContributorName(1), true);
+		Element element = extension.get("factory.1"); //$NON-NLS-1$
+		assertNotNull(element);
+		assertEquals(TestRegistry.getContributorName(CONTRIBUTIONS), element.getContributor());
+	}
+	
+	/**
+	 * Test that only unknown IDs are remembered as missing, and elements
+	 * that could not be created are retried
+	 */
+	@Test
+	public void testMissing() {
+		TestIdentifiableExtension extension = new TestIdentifiableExtension(registry,
+				ElementCachePolicy.unbounded());
+		
+		assertNull(extension.get("unknown")); //$NON-NLS-1$
+		
+		extension.setFailing(TestRegistry.getContributorName(1), true);
+		assertNull(extension.get("factory.1")); //$NON-NLS-1$
+		
+		extension.setFailing(TestRegistry.getContributorName(1), false);
+		assertNotNull(extension.get("factory.1")); //$NON-NLS-1$
+		
+		// the index is discarded when extensions are added
+		TestRegistry.addFactories(registry, TestRegistry.getContributorName(CONTRIBUTIONS),
+				"unknown"); //$NON-NLS-1$
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (extension.get("unknown") == null) { //$NON-NLS-1$
+			if (System.currentTimeMillis() > deadline) {
+				fail("Registry change was not processed"); //$NON-NLS-1$
+			}
+			sleep();
+		}
+	}
+	
+	/**
+	 * Test that created elements are discarded when their extension is
+	 * removed
+	 */
+	@Test
+	public void testRemove() {
+		TestIdentifiableExtension extension = new TestIdentifiableExtension(registry,
+				ElementCachePolicy.unbounded());
+		
+		assertNotNull(extension.get("factory.0")); //$NON-NLS-1$
+		assertEquals(CONTRIBUTIONS, extension.getElements().size());
+		
+		TestRegistry.removeFactories(registry, TestRegistry.getContributorName(0));
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (extension.get("factory.0") != null) { //$NON-NLS-1$
+			if (System.currentTimeMillis() > deadline) {
+				fail("Registry change was not processed"); //$NON-NLS-1$
+			}
+			sleep();
+		}
+		
+		assertEquals(CONTRIBUTIONS - 1, extension.getElements().size());
+	}
+	
+	/**
+	 * Wait before checking again if a registry change was processed
+	 */
+	private static void sleep() {
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail("Interrupted"); //$NON-NLS-1$
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension.simple;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionRegistry;
+
+import de.fhg.igd.eclipse.util.extension.TestRegistry;
+
+/**
+ * <p>Title: TestIdentifiableExtension</p>
+ * <p>Description: Identifiable extension for the extension point of a
+ * {@link TestRegistry}. Counts the created elements and fails creating
+ * the elements of the contributors marked as failing.</p>
+ * @author Simon Templer
+ */
+public class TestIdentifiableExtension extends IdentifiableExtension<TestIdentifiableExtension.Element> {
+	
+	/**
+	 * Element created for a configuration element
+	 */
+	public static class Element implements Identifiable {
+		
+		private final String id;
+		
+		private final String contributor;
+		
+		/**
+		 * Create an element
+		 * 
+		 * @param id the element ID
+		 * @param contributor the contributor name
+		 */
+		public Element(String id, String contributor) {
+			super();
+			this.id = id;
+			this.contributor = contributor;
+		}
+		
+		/**
+		 * @see Identifiable#getId()
+		 */
+		@Override
+		public String getId() {
+			return id;
+		}
+		
+		/**
+		 * @return the name of the contributor of the configuration element
+		 */
+		public String getContributor() {
+			return contributor;
+		}
+	
+	}
+	
+	private final IExtensionRegistry registry;
+	
+	private final Set<String> failing = Collections.synchronizedSet(new HashSet<String>());
+	
+	private final AtomicInteger created = new AtomicInteger();
+	
+	/**
+	 * Create the extension
+	 * 
+	 * @param registry the registry created with {@link TestRegistry}
+	 * @param cachePolicy the policy for retaining created elements
+	 */
+	public TestIdentifiableExtension(IExtensionRegistry registry,
+			ElementCachePolicy cachePolicy) {
+		super(TestRegistry.POINT_ID, true, true, cachePolicy);
+		
+		this.registry = registry;
+	}
+	
+	/**
+	 * Set if creating the elements of the given contributor fails
+	 * 
+	 * @param contributor the contributor name
+	 * @param fail if creating the elements should fail
+	 */
+	public void setFailing(String contributor, boolean fail) {
+		if (fail) {
+			failing.add(contributor);
+		}
+		else {
+			failing.remove(contributor);
+		}
+	}
+	
+	/**
+	 * @return the number of elements created
+	 */
+	public int getCreatedCount() {
+		return created.get();
+	}
+	
+	/**
+	 * @see IdentifiableExtension#getExtensionRegistry()
+	 */
+	@Override
+	protected IExtensionRegistry getExtensionRegistry() {
+		return registry;
+	}
+	
+	/**
+	 * @see IdentifiableExtension#getIdAttributeName()
+	 */
+	@Override
+	protected String getIdAttributeName() {
+		return "id"; //$NON-NLS-1$
+	}
+	
+	/**
+	 * @see IdentifiableExtension#create(String, IConfigurationElement)
+	 */
+	@Override
+	protected Element create(String elementId, IConfigurationElement element) {
+		String contributor = element.getContributor().getName();
+		if (failing.contains(contributor)) {
+			return null;
+		}
+		created.incrementAndGet();
+		return new Element(elementId, contributor);
+	}
+
+}
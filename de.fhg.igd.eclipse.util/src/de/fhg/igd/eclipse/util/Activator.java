@@ -0,0 +1,95 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util;
+
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+
+import de.fhg.igd.eclipse.util.extension.BundleGeneration;
+import de.fhg.igd.eclipse.util.extension.ExtensionMetrics;
+import de.fhg.igd.eclipse.util.extension.ExtensionPrewarmer;
+
+/**
+ * <p>Title: Activator</p>
+ * <p>Description: The plugin activator, tracks bundle changes for the
+ * caches of bundle resources and starts prewarming extensions once the
+ * extension registry is available. The bundle is activated lazily, so it
+ * is started when its classes are first used.</p>
+ * @author Simon Templer
+ */
+public class Activator implements BundleActivator {
+	
+	/**
+	 * The plug-in ID
+	 */
+	public static final String PLUGIN_ID = "de.fhg.igd.eclipse.util"; //$NON-NLS-1$
+	
+	private ServiceTracker<IExtensionRegistry, IExtensionRegistry> registryTracker;
+	
+	/**
+	 * @see BundleActivator#start(BundleContext)
+	 */
+	@Override
+	public void start(BundleContext context) throws Exception {
+		BundleGeneration.start(context);
+		
+		registryTracker = new ServiceTracker<IExtensionRegistry, IExtensionRegistry>(
+				context, IExtensionRegistry.class, null) {
+			
+			@Override
+			public IExtensionRegistry addingService(
+					ServiceReference<IExtensionRegistry> reference) {
+				IExtensionRegistry registry = super.addingService(reference);
+				ExtensionPrewarmer.enable();
+				return registry;
+			}
+			
+			@Override
+			public void removedService(ServiceReference<IExtensionRegistry> reference,
+					IExtensionRegistry service) {
+				ExtensionPrewarmer.disable();
+				super.removedService(reference, service);
+			}
+		
+		};
+		registryTracker.open();
+		
+		if (ExtensionMetrics.isEnabled()) {
+			// register the management bean again after a restart
+			ExtensionMetrics.setEnabled(true);
+		}
+	}
+	
+	/**
+	 * @see BundleActivator#stop(BundleContext)
+	 */
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		registryTracker.close();
+		registryTracker = null;
+		ExtensionPrewarmer.disable();
+		ExtensionMetrics.unregisterMBean();
+		BundleGeneration.stop();
+	}
+
+}
@@ -19,9 +19,18 @@
 
 package de.fhg.igd.eclipse.util.extension;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExecutableExtension;
+import org.eclipse.core.runtime.IExecutableExtensionFactory;
 import org.eclipse.core.runtime.Platform;
 import org.osgi.framework.Bundle;
 
@@ -33,6 +42,56 @@ import org.osgi.framework.Bundle;
  */
 public abstract class AbstractConfigurationFactory<T> extends AbstractObjectFactory<T>  {
 	
+	/**
+	 * Icon URLs resolved in a bundle generation
+	 */
+	private static class IconCache {
+		
+		private final long generation;
+		
+		private final ConcurrentMap<String, Object> urls = new ConcurrentHashMap<String, Object>();
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param generation the bundle generation
+		 */
+		public IconCache(long generation) {
+			super();
+			this.generation = generation;
+		}
+	
+	}
+	
+	/**
+	 * The way extension objects are created, determined in a bundle
+	 * generation
+	 */
+	private static class Instantiation {
+		
+		private final long generation;
+		
+		private final Object handle;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param generation the bundle generation
+		 * @param handle the constructor handle or {@link #REGISTRY}
+		 */
+		public Instantiation(long generation, Object handle) {
+			super();
+			this.generation = generation;
+			this.handle = handle;
+		}
+	
+	}
+	
+	/**
+	 * Marks that no icon is defined or it can't be resolved
+	 */
+	private static final Object NO_ICON = new Object();
+	
 	/**
 	 * The configuration element defining the object
 	 */
@@ -40,6 +99,34 @@ public abstract class AbstractConfigurationFactory<T> extends AbstractObjectFact
 	
 	private final String classAttributeName;
 	
+	/**
+	 * The name of the contributor of the configuration element
+	 */
+	private final String contributorName;
+	
+	/**
+	 * Marks that extension objects are created through the registry
+	 */
+	private static final Object REGISTRY = new Object();
+	
+	/**
+	 * The way extension objects are created, <code>null</code> if not yet
+	 * determined
+	 */
+	private volatile Instantiation instantiation;
+	
+	/**
+	 * The resolved icon URLs by attribute, <code>null</code> if none have
+	 * been resolved yet
+	 */
+	private volatile IconCache icons;
+	
+	/**
+	 * Immutable copy of the configuration element, <code>null</code> if
+	 * attributes are read from the configuration element
+	 */
+	private final ElementSnapshot element;
+	
 	/**
 	 * Create a object factory based on an {@link IConfigurationElement}
 	 * 
@@ -49,8 +136,50 @@ public abstract class AbstractConfigurationFactory<T> extends AbstractObjectFact
 	 */
 	protected AbstractConfigurationFactory(final IConfigurationElement conf, 
 			final String classAttributeName) {
+		this(conf, classAttributeName, false);
+	}
+	
+	/**
+	 * Create a object factory based on an {@link IConfigurationElement}
+	 * 
+	 * @param conf the configuration element defining the object
+	 * @param classAttributeName the name of the attribute defining
+	 *   the object type
+	 * @param snapshot if the attributes and children of the configuration
+	 *   element should be copied to an {@link ElementSnapshot} that is used
+	 *   by {@link #getAttribute(String)} and {@link #getElement()}
+	 */
+	protected AbstractConfigurationFactory(final IConfigurationElement conf, 
+			final String classAttributeName, boolean snapshot) {
 		this.conf = conf;
 		this.classAttributeName = classAttributeName;
+		this.element = (snapshot) ? (ElementSnapshot.of(conf)) : (null);
+		this.contributorName = (element != null) ? (element.getContributor())
+				: (conf.getContributor().getName());
+	}
+	
+	/**
+	 * Get the value of an attribute of the configuration element. Reads
+	 * from the element snapshot if one was created.
+	 * 
+	 * @param attributeName the attribute name
+	 * @return the attribute value or <code>null</code>
+	 */
+	protected String getAttribute(String attributeName) {
+		if (element != null) {
+			return element.getAttribute(attributeName);
+		}
+		return conf.getAttribute(attributeName);
+	}
+	
+	/**
+	 * Get the immutable copy of the configuration element
+	 * 
+	 * @return the element snapshot or <code>null</code> if the factory was
+	 *   not created with a snapshot
+	 */
+	protected ElementSnapshot getElement() {
+		return element;
 	}
 	
 	/**
@@ -58,20 +187,111 @@ public abstract class AbstractConfigurationFactory<T> extends AbstractObjectFact
 	 */
 	@Override
 	public String getTypeName() {
-		return conf.getAttribute(classAttributeName);
+		return getAttribute(classAttributeName);
 	}
 	
 	/**
 	 * @see ExtensionObjectFactory#createExtensionObject()
 	 */
+	@SuppressWarnings("unchecked")
 	@Override
 	public T createExtensionObject() throws Exception {
-		return (T) conf.createExecutableExtension(classAttributeName);
+		long generation = BundleGeneration.get(contributorName);
+		Instantiation inst = instantiation;
+		if (inst == null || inst.generation != generation) {
+			inst = new Instantiation(generation, resolveInstantiation());
+			instantiation = inst;
+		}
+		
+		if (inst.handle == REGISTRY) {
+			return (T) conf.createExecutableExtension(classAttributeName);
+		}
+		
+		Object result;
+		try {
+			result = (Object) ((MethodHandle) inst.handle).invokeExact();
+		} catch (LinkageError e) {
+			// class can't be linked from here - let the registry handle it
+			instantiation = new Instantiation(generation, REGISTRY);
+			return (T) conf.createExecutableExtension(classAttributeName);
+		} catch (Exception e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new InvocationTargetException(e);
+		}
+		
+		// same initialization as done by the registry
+		if (result instanceof IExecutableExtension) {
+			((IExecutableExtension) result).setInitializationData(conf,
+					classAttributeName, null);
+		}
+		
+		return (T) result;
+	}
+	
+	/**
+	 * Determine if extension objects may be created directly through their
+	 * constructor instead of through the extension registry. The class is
+	 * resolved once and the constructor is cached until the contributing
+	 * bundle is refreshed. Override to return <code>true</code> to enable this for
+	 * extension objects that don't rely on the registry creating them.
+	 * Objects with initialization data are always created through the
+	 * registry.
+	 * 
+	 * @return if direct instantiation is allowed, the default is
+	 *   <code>false</code>
+	 */
+	protected boolean isDirectInstantiation() {
+		return false;
+	}
+	
+	/**
+	 * Determine how extension objects are created
+	 * 
+	 * @return the constructor handle or {@link #REGISTRY}
+	 */
+	private Object resolveInstantiation() {
+		if (!isDirectInstantiation()) {
+			return REGISTRY;
+		}
+		
+		String className = getAttribute(classAttributeName);
+		if (className == null || className.indexOf(':') >= 0
+				|| className.indexOf('/') >= 0) {
+			// nested class element, initialization data in the class:data
+			// form or class from another bundle - let the registry handle it
+			return REGISTRY;
+		}
+		if (conf.getChildren(classAttributeName).length > 0) {
+			// initialization data given as parameters of a nested element
+			// named after the attribute is only passed by the registry
+			return REGISTRY;
+		}
+		
+		try {
+			Class<?> type = ExtensionUtil.loadClass(conf, classAttributeName);
+			if (type == null
+					|| IExecutableExtensionFactory.class.isAssignableFrom(type)
+					|| !Modifier.isPublic(type.getModifiers())
+					|| Modifier.isAbstract(type.getModifiers())) {
+				return REGISTRY;
+			}
+			
+			return MethodHandles.publicLookup()
+					.findConstructor(type, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+		} catch (Exception | LinkageError e) {
+			// no accessible default constructor or class not resolvable
+			return REGISTRY;
+		}
 	}
 	
 	/**
 	 * Utility method to get the URL of an icon defined in the
-	 *   configuration element
+	 *   configuration element. The URL is resolved once and cached until
+	 *   the contributing bundle is refreshed.
 	 *   
 	 * @param iconAttribute the name of the icon attribute
 	 * 
@@ -79,10 +299,36 @@ public abstract class AbstractConfigurationFactory<T> extends AbstractObjectFact
 	 *   or the bundle is not found
 	 */
 	protected URL getIconURL(String iconAttribute) {
-		String icon = conf.getAttribute(iconAttribute);
+		long generation = BundleGeneration.get(contributorName);
+		IconCache cache = icons;
+		if (cache == null || cache.generation != generation) {
+			cache = new IconCache(generation);
+			icons = cache;
+		}
+		
+		Object url = cache.urls.get(iconAttribute);
+		if (url == null) {
+			url = resolveIconURL(iconAttribute);
+			if (url == null) {
+				url = NO_ICON;
+			}
+			cache.urls.put(iconAttribute, url);
+		}
+		
+		return (url == NO_ICON) ? (null) : ((URL) url);
+	}
+	
+	/**
+	 * Resolve the URL of an icon defined in the configuration element
+	 * 
+	 * @param iconAttribute the name of the icon attribute
+	 * @return the icon URL or <code>null</code> if none is defined
+	 *   or the bundle is not found
+	 */
+	private URL resolveIconURL(String iconAttribute) {
+		String icon = getAttribute(iconAttribute);
 		if (icon != null && !icon.isEmpty()) {
-			String contributor = conf.getDeclaringExtension().getContributor().getName();
-			Bundle bundle = Platform.getBundle(contributor);
+			Bundle bundle = Platform.getBundle(contributorName);
 			
 			if (bundle != null) {
 				return bundle.getResource(icon);
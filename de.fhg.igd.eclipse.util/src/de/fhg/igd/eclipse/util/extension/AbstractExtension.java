@@ -20,150 +20,1655 @@
 package de.fhg.igd.eclipse.util.extension;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import de.fhg.igd.eclipse.util.extension.ExtensionMetrics.Operation;
+
 /**
  * <p>Title: AbstractExtension</p>
- * <p>Description: Utilities for an extension point</p>
+ * <p>Description: Utilities for an extension point. The factories are
+ * created once and published as an immutable {@link FactorySnapshot}, that
+ * is replaced incrementally when extensions are added to or removed from
+ * the extension registry. Reading factories requires no locking.
+ * Within a snapshot the factories are partitioned by contributor, so
+ * changes to a contributor only affect its own partition.</p>
  * @param <T> the extension object type
  * @param <F> the factory type
  * @author Simon Templer
  */
-public abstract class AbstractExtension<T, F extends ExtensionObjectFactory<T>> implements ObjectExtension<T, F> {
+public abstract class AbstractExtension<T, F extends ExtensionObjectFactory<T>> implements CachingObjectExtension<T, F> {
+	
+	/**
+	 * Listener updating the factory snapshot of an extension
+	 */
+	private static class RegistryListener extends WeakRegistryListener<AbstractExtension<?, ?>> {
+		
+		/**
+		 * @see WeakRegistryListener#WeakRegistryListener(Object, IExtensionRegistry)
+		 */
+		public RegistryListener(AbstractExtension<?, ?> owner,
+				IExtensionRegistry registry) {
+			super(owner, registry);
+		}
+		
+		@Override
+		protected void added(AbstractExtension<?, ?> owner, IExtension[] extensions) {
+			owner.extensionsAdded(extensions);
+		}
+		
+		@Override
+		protected void removed(AbstractExtension<?, ?> owner, IExtension[] extensions) {
+			owner.extensionsRemoved(extensions);
+		}
+		
+		@Override
+		protected void reset(AbstractExtension<?, ?> owner) {
+			owner.reset();
+		}
+	
+	}
+	
+	/**
+	 * Bounded set of IDs for which no factory exists in a snapshot
+	 */
+	private static class MissingIds {
+		
+		private final long version;
+		
+		private final Map<String, Boolean> ids = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > MAX_MISSING_IDS;
+			}
+		
+		};
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param version the version of the snapshot the IDs are missing in
+		 */
+		public MissingIds(long version) {
+			super();
+			this.version = version;
+		}
+		
+		/**
+		 * Determine if an ID is known to be missing
+		 * 
+		 * @param id the ID
+		 * @return if the ID is missing
+		 */
+		public synchronized boolean contains(String id) {
+			return ids.get(id) != null;
+		}
+		
+		/**
+		 * Remember an ID as missing
+		 * 
+		 * @param id the ID
+		 */
+		public synchronized void add(String id) {
+			ids.put(id, Boolean.TRUE);
+		}
+	
+	}
+	
+	/**
+	 * Job storing the factory definitions of the current snapshot in the
+	 * persistent index
+	 */
+	private static class IndexJob extends Job {
+		
+		private final AbstractExtension<?, ?> extension;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param extension the extension
+		 */
+		public IndexJob(AbstractExtension<?, ?> extension) {
+			super("Updating extension index"); //$NON-NLS-1$
+			this.extension = extension;
+			
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+		
+		/**
+		 * @see Job#run(IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			extension.storeIndex();
+			return Status.OK_STATUS;
+		}
+	
+	}
+	
+	/**
+	 * Job retrying the quarantined configuration elements that are due
+	 */
+	private static class RetryJob extends Job {
+		
+		private final AbstractExtension<?, ?> extension;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param extension the extension
+		 */
+		public RetryJob(AbstractExtension<?, ?> extension) {
+			super("Retrying quarantined extensions"); //$NON-NLS-1$
+			this.extension = extension;
+			
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+		
+		/**
+		 * @see Job#run(IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			extension.retryScheduled.set(false);
+			extension.retryQuarantined();
+			return Status.OK_STATUS;
+		}
+	
+	}
+	
+	/**
+	 * Thread factory for the shared query executor
+	 */
+	private static class QueryThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		/**
+		 * @see ThreadFactory#newThread(Runnable)
+		 */
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "Extension query #" + count.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	
+	}
+	
+	/**
+	 * Blocker waiting for a task, so a pool running the waiting thread
+	 * may compensate for it
+	 */
+	private static class TaskBlocker implements ForkJoinPool.ManagedBlocker {
+		
+		private final FutureTask<?> task;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param task the task to wait for
+		 */
+		public TaskBlocker(FutureTask<?> task) {
+			super();
+			this.task = task;
+		}
+		
+		/**
+		 * @see ForkJoinPool.ManagedBlocker#block()
+		 */
+		@Override
+		public boolean block() throws InterruptedException {
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				// reported when getting the result
+			}
+			return true;
+		}
+		
+		/**
+		 * @see ForkJoinPool.ManagedBlocker#isReleasable()
+		 */
+		@Override
+		public boolean isReleasable() {
+			return task.isDone();
+		}
+	
+	}
 	
 	private static final Logger log = LoggerFactory.getLogger(AbstractExtension.class);
 	
+	/**
+	 * The delay in milliseconds before the persistent index is written
+	 * after a change, further changes within the delay postpone writing
+	 */
+	private static final long INDEX_WRITE_DELAY = 2000;
+	
+	/**
+	 * The maximum number of remembered IDs without a factory
+	 */
+	private static final int MAX_MISSING_IDS = 256;
+	
+	/**
+	 * If an extension class overrides
+	 * {@link #getFactories(IConfigurationElement, FactoryFilter)}
+	 */
+	private static final ClassValue<Boolean> factoriesOverridden = new ClassValue<Boolean>() {
+		
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> c = type; c != null && c != AbstractExtension.class; c = c.getSuperclass()) {
+				try {
+					c.getDeclaredMethod("getFactories", IConfigurationElement.class, //$NON-NLS-1$
+							FactoryFilter.class);
+					return true;
+				} catch (NoSuchMethodException e) {
+					// check the super class
+				}
+			}
+			return false;
+		}
+	
+	};
+	
+	/**
+	 * Pool shared by all extensions for building factories in parallel,
+	 * lazily created
+	 */
+	private static ForkJoinPool sharedBuildPool;
+	
+	/**
+	 * Executor shared by all extensions for asynchronous queries, lazily
+	 * created. Separate from the build pool, as queries wait for the
+	 * snapshot creation that may use the build pool.
+	 */
+	private static ExecutorService sharedQueryExecutor;
+	
 	private final String extensionPointID;
 	
 	/**
-	 * Caches IDs and associated factories.
+	 * The current factory snapshot, <code>null</code> if not yet created
+	 */
+	private volatile FactorySnapshot<T, F> snapshot;
+	
+	/**
+	 * Lock for creating and replacing the snapshot
+	 */
+	private final Object updateLock = new Object();
+	
+	/**
+	 * The version of the last published snapshot, guarded by
+	 * {@link #updateLock}
+	 */
+	private long version = 0;
+	
+	/**
+	 * The listener keeping the snapshot up to date, guarded by
+	 * {@link #updateLock}
+	 */
+	private RegistryListener listener;
+	
+	/**
+	 * IDs without a factory in the current snapshot, may be
+	 * <code>null</code>
+	 */
+	private volatile MissingIds missingIds;
+	
+	/**
+	 * Configuration elements mapped by factory ID, <code>null</code> if not
+	 * yet created. Used to resolve single factories before the snapshot is
+	 * created.
+	 */
+	private volatile Map<String, IConfigurationElement> elementIndex;
+	
+	/**
+	 * Factories resolved using the element index, reused when the snapshot
+	 * is created
+	 */
+	private final ConcurrentMap<IConfigurationElement, F> resolvedFactories = new ConcurrentHashMap<IConfigurationElement, F>();
+	
+	/**
+	 * Views registered for filters. Both filters and views are only weakly
+	 * referenced, a view is available as long as it is in use.
+	 */
+	private final ConcurrentMap<FactoryFilter<T, F>, SnapshotFactoryView<T, F>> views = new MapMaker()
+			.weakKeys().weakValues().makeMap();
+	
+	/**
+	 * Configuration elements for which creating the factory failed
+	 */
+	private final ElementQuarantine quarantine = new ElementQuarantine(log);
+	
+	/**
+	 * The snapshot creation shared by pending asynchronous queries,
+	 * <code>null</code> if there is none
+	 */
+	private final AtomicReference<FutureTask<FactorySnapshot<T, F>>> snapshotCreation = new AtomicReference<FutureTask<FactorySnapshot<T, F>>>();
+	
+	/**
+	 * If factories should be created in parallel
+	 */
+	private volatile boolean parallelBuild = false;
+	
+	/**
+	 * The executor for creating factories in parallel, <code>null</code>
+	 * for the shared pool
+	 */
+	private volatile Executor buildExecutor;
+	
+	/**
+	 * If the factory definitions should be stored in a persistent index
+	 */
+	private volatile boolean persistentIndex = false;
+	
+	/**
+	 * The definitions loaded from the persistent index, <code>null</code>
+	 * if not loaded. Discarded when the extension point changes.
+	 */
+	private volatile List<ExtensionObjectDefinition> indexedDefinitions;
+	
+	/**
+	 * The job writing the persistent index, <code>null</code> if not yet
+	 * created. Guarded by {@link #updateLock}.
+	 */
+	private IndexJob indexJob;
+	
+	/**
+	 * The job retrying quarantined configuration elements
+	 */
+	private final RetryJob retryJob = new RetryJob(this);
+	
+	/**
+	 * If retrying the quarantined configuration elements is scheduled
+	 */
+	private final AtomicBoolean retryScheduled = new AtomicBoolean();
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param extensionPointID the extension point id
+	 */
+	public AbstractExtension(final String extensionPointID) {
+		this.extensionPointID = extensionPointID;
+	}
+	
+	/**
+	 * Get the extension point ID
+	 * 
+	 * @return the extension point ID
+	 */
+	public String getExtensionPointID() {
+		return extensionPointID;
+	}
+	
+	/**
+	 * Get the extension registry the extension point is read from. The
+	 * registry must not change over the lifetime of the extension.
+	 * 
+	 * @return the extension registry, by default the platform registry
+	 */
+	protected IExtensionRegistry getExtensionRegistry() {
+		return Platform.getExtensionRegistry();
+	}
+	
+	/**
+	 * @return if factories are created in parallel
+	 */
+	public boolean isParallelBuild() {
+		return parallelBuild;
+	}
+	
+	/**
+	 * Set if factories should be created in parallel. This is useful for
+	 * extension points with many contributions where creating a factory
+	 * involves loading classes. Factories created in parallel must not
+	 * access this extension while they are being created. 
+	 * 
+	 * @param parallelBuild if factories should be created in parallel
+	 */
+	public void setParallelBuild(boolean parallelBuild) {
+		this.parallelBuild = parallelBuild;
+	}
+	
+	/**
+	 * @return the executor for creating factories in parallel,
+	 *   <code>null</code> if a pool shared by all extensions is used
+	 */
+	public Executor getBuildExecutor() {
+		return buildExecutor;
+	}
+	
+	/**
+	 * Set the executor used for creating factories in parallel. Only
+	 * used if parallel creation is enabled.
+	 * 
+	 * @param buildExecutor the executor, <code>null</code> to use a
+	 *   fork-join pool shared by all extensions
+	 * @see #setParallelBuild(boolean)
+	 */
+	public void setBuildExecutor(Executor buildExecutor) {
+		this.buildExecutor = buildExecutor;
+	}
+	
+	/**
+	 * @return if the factory definitions are stored in a persistent index
+	 */
+	public boolean isPersistentIndex() {
+		return persistentIndex;
+	}
+	
+	/**
+	 * Set if the factory definitions should be stored in a persistent
+	 * {@link ExtensionIndex}. If enabled, {@link #getDefinitions()} can be
+	 * served from the index on later startups as long as the contributing
+	 * bundles don't change.
+	 * 
+	 * @param persistentIndex if a persistent index should be used
+	 */
+	public void setPersistentIndex(boolean persistentIndex) {
+		this.persistentIndex = persistentIndex;
+	}
+	
+	/**
+	 * Get the definitions of the factories created for the configuration
+	 * elements, sorted. If the persistent index is enabled and the factories
+	 * have not been created yet, the definitions are loaded from the index
+	 * if it is up to date. The loaded definitions are kept until the
+	 * extension point changes. Factories of factory collections are not
+	 * included.
+	 * 
+	 * @return the factory definitions
+	 * @see #setPersistentIndex(boolean)
+	 */
+	public List<ExtensionObjectDefinition> getDefinitions() {
+		if (snapshot == null && persistentIndex) {
+			List<ExtensionObjectDefinition> indexed = indexedDefinitions;
+			if (indexed == null) {
+				synchronized (updateLock) {
+					indexed = indexedDefinitions;
+					if (indexed == null && snapshot == null) {
+						// the listener discards the definitions on changes
+						String fingerprint = ExtensionIndex.getFingerprint(
+								getRegistry(), extensionPointID);
+						List<IndexedDefinition> loaded = ExtensionIndex.load(
+								extensionPointID, fingerprint);
+						if (loaded != null) {
+							indexed = Collections.unmodifiableList(
+									new ArrayList<ExtensionObjectDefinition>(loaded));
+							indexedDefinitions = indexed;
+						}
+					}
+				}
+			}
+			if (indexed != null) {
+				return new ArrayList<ExtensionObjectDefinition>(indexed);
+			}
+		}
+		
+		return new ArrayList<ExtensionObjectDefinition>(getSnapshot().getFactories());
+	}
+	
+	/**
+	 * Get the pool shared by all extensions for creating factories in
+	 * parallel
+	 * 
+	 * @return the shared pool
+	 */
+	private static synchronized ForkJoinPool getSharedBuildPool() {
+		if (sharedBuildPool == null) {
+			sharedBuildPool = new ForkJoinPool();
+		}
+		return sharedBuildPool;
+	}
+	
+	/**
+	 * Get the executor shared by all extensions for asynchronous queries
+	 * 
+	 * @return the shared query executor
+	 */
+	private static synchronized ExecutorService getSharedQueryExecutor() {
+		if (sharedQueryExecutor == null) {
+			sharedQueryExecutor = Executors.newCachedThreadPool(new QueryThreadFactory());
+		}
+		return sharedQueryExecutor;
+	}
+	
+	/**
+	 * Get the current factory snapshot, creates it if needed
+	 * 
+	 * @return the factory snapshot
+	 */
+	public FactorySnapshot<T, F> getSnapshot() {
+		FactorySnapshot<T, F> result = snapshot;
+		if (result != null) {
+			if (quarantine.isRetryDue() && retryScheduled.compareAndSet(false, true)) {
+				// retry in the background, the snapshot is updated when done
+				retryJob.schedule();
+			}
+			return result;
+		}
+		
+		synchronized (updateLock) {
+			if (snapshot == null) {
+				IExtensionRegistry registry = getRegistry();
+				
+				IExtensionPoint point = registry.getExtensionPoint(extensionPointID);
+				IExtension[] extensions = (point != null) ? (point.getExtensions())
+						: (new IExtension[0]);
+				publish(addToPartitions(
+						Collections.<String, ContributorPartition<T, F>> emptyMap(),
+						createContributions(extensions)));
+				
+				// factories resolved individually are now part of the snapshot
+				resolvedFactories.clear();
+				indexedDefinitions = null;
+			}
+			return snapshot;
+		}
+	}
+	
+	/**
+	 * Get the extension registry and make sure the registry listener is
+	 * registered. The caller must hold the {@link #updateLock}.
+	 * 
+	 * @return the extension registry
+	 */
+	private IExtensionRegistry getRegistry() {
+		IExtensionRegistry registry = getExtensionRegistry();
+		
+		// register the listener before reading the extensions so no
+		// change is missed
+		if (listener == null) {
+			listener = new RegistryListener(this, registry);
+			listener.register(extensionPointID);
+		}
+		
+		return registry;
+	}
+	
+	/**
+	 * @see CachingObjectExtension#getVersion()
+	 */
+	@Override
+	public long getVersion() {
+		return getSnapshot().getVersion();
+	}
+	
+	/**
+	 * @see ObjectExtension#getFactory(String)
+	 */
+	@Override
+	public F getFactory(String id) {
+		long start = ExtensionMetrics.start();
+		if (start == 0) {
+			return lookupFactory(id);
+		}
+		
+		boolean error = true;
+		try {
+			F result = lookupFactory(id);
+			error = false;
+			return result;
+		} finally {
+			ExtensionMetrics.record(extensionPointID, Operation.GET_FACTORY, start, error);
+		}
+	}
+	
+	/**
+	 * Look up the factory with the given ID
+	 * 
+	 * @param id the factory ID
+	 * @return the factory or <code>null</code> if there is none with that ID
+	 */
+	private F lookupFactory(String id) {
+		FactorySnapshot<T, F> current = snapshot;
+		boolean cached = true;
+		
+		if (current == null) {
+			// try to avoid creating all factories
+			F factory = resolveFactory(id);
+			if (factory != null) {
+				return factory;
+			}
+			
+			current = getSnapshot();
+			cached = false;
+		}
+		
+		MissingIds missing = missingIds;
+		if (missing != null && missing.version == current.getVersion()
+				&& missing.contains(id)) {
+			recordLookup(cached);
+			return null;
+		}
+		
+		F factory = current.getFactory(id);
+		
+		if (factory == null) {
+			recordLookup(false);
+			
+			// the factories of collections may change, so they are not
+			// part of the snapshot
+			for (ExtensionObjectFactoryCollection<T, F> collection : current.getCollections()) {
+				for (F collectionFactory : collection.getFactories()) {
+					if (id.equals(collectionFactory.getIdentifier())) {
+						return collectionFactory;
+					}
+				}
+			}
+			
+			if (current.getCollections().isEmpty()) {
+				// remember the ID as missing
+				if (missing == null || missing.version != current.getVersion()) {
+					missing = new MissingIds(current.getVersion());
+					missingIds = missing;
+				}
+				missing.add(id);
+			}
+		}
+		else {
+			recordLookup(cached);
+		}
+		
+		return factory;
+	}
+	
+	/**
+	 * Record if a lookup was served from the snapshot, the ID index or a
+	 * view without building them
+	 * 
+	 * @param hit if the lookup was served from the cache
+	 */
+	private void recordLookup(boolean hit) {
+		if (hit) {
+			ExtensionMetrics.cacheHit(extensionPointID);
+		}
+		else {
+			ExtensionMetrics.cacheMiss(extensionPointID);
+		}
+	}
+	
+	/**
+	 * Resolve the factory with the given ID without creating the other
+	 * factories, using the ID attribute of the configuration elements.
+	 * 
+	 * @param id the factory ID
+	 * @return the factory or <code>null</code> if it cannot be resolved
+	 *   this way
+	 * @see #getIdAttributeName()
+	 */
+	private F resolveFactory(String id) {
+		String idAttribute = getIdAttributeName();
+		if (idAttribute == null || factoriesOverridden.get(getClass())) {
+			return null;
+		}
+		
+		Map<String, IConfigurationElement> index = elementIndex;
+		if (index == null) {
+			synchronized (updateLock) {
+				index = elementIndex;
+				if (index == null) {
+					index = new HashMap<String, IConfigurationElement>();
+					for (IConfigurationElement conf : getRegistry().getConfigurationElementsFor(extensionPointID)) {
+						String elementId = conf.getAttribute(idAttribute);
+						if (elementId != null && !index.containsKey(elementId)) {
+							index.put(elementId, conf);
+						}
+					}
+					elementIndex = index;
+				}
+			}
+		}
+		
+		IConfigurationElement conf = index.get(id);
+		if (conf == null) {
+			return null;
+		}
+		
+		F factory = resolvedFactories.get(conf);
+		if (factory == null) {
+			if (quarantine.isBlocked(conf)) {
+				return null;
+			}
+			try {
+				factory = createFactoryFor(conf);
+			} catch (Exception e) {
+				quarantine.failed(conf, id, e);
+				return null;
+			}
+			if (factory != null) {
+				recordLookup(false);
+				F existing = resolvedFactories.putIfAbsent(conf, factory);
+				if (existing != null) {
+					factory = existing;
+				}
+				else if (snapshot != null || elementIndex != index) {
+					// the snapshot was created or the index discarded
+					// meanwhile, don't keep the factory for the next build
+					resolvedFactories.remove(conf, factory);
+				}
+			}
+		}
+		else {
+			recordLookup(true);
+		}
+		return factory;
+	}
+
+	/**
+	 * @see ObjectExtension#getFactories(FactoryFilter)
+	 */
+	@Override
+	public List<F> getFactories(FactoryFilter<T, F> filter) {
+		long start = ExtensionMetrics.start();
+		if (start == 0) {
+			return collectFactories(filter);
+		}
+		
+		boolean error = true;
+		try {
+			List<F> result = collectFactories(filter);
+			error = false;
+			return result;
+		} finally {
+			ExtensionMetrics.record(extensionPointID, Operation.GET_FACTORIES, start, error);
+		}
+	}
+	
+	/**
+	 * Collect the factories accepted by the given filter
+	 * 
+	 * @param filter the factory filter, may be <code>null</code>
+	 * @return the sorted list of factories
+	 */
+	private List<F> collectFactories(FactoryFilter<T, F> filter) {
+		if (filter != null) {
+			FactoryView<T, F> view = views.get(filter);
+			if (view != null) {
+				recordLookup(true);
+				return new ArrayList<F>(view.getFactories());
+			}
+		}
+		
+		// without filter the snapshot itself serves as cache
+		recordLookup(filter == null && snapshot != null);
+		FactorySnapshot<T, F> current = getSnapshot();
+		
+		List<F> result = new ArrayList<F>();
+		
+		// snapshot factories are already sorted
+		for (F factory : current.getFactories()) {
+			if (filter == null || filter.acceptFactory(factory)) {
+				result.add(factory);
+			}
+		}
+		
+		if (addCollectionFactories(current.getCollections(), filter, result)) {
+			DefinitionSortKey.sort(result);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @see ObjectExtension#getFactories()
+	 */
+	@Override
+	public List<F> getFactories() {
+		return getFactories(null);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#forEachFactory(FactoryFilter, FactoryVisitor)
+	 */
+	@Override
+	public boolean forEachFactory(FactoryFilter<T, F> filter,
+			FactoryVisitor<T, F> visitor) {
+		FactorySnapshot<T, F> current = getSnapshot();
+		
+		if (!current.getCollections().isEmpty()) {
+			// the order can only be determined when including the
+			// collection factories
+			for (F factory : getFactories(filter)) {
+				if (!visitor.visit(factory)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		// snapshot factories are already sorted
+		List<F> factories = current.getFactories();
+		for (int i = 0; i < factories.size(); i++) {
+			F factory = factories.get(i);
+			if ((filter == null || filter.acceptFactory(factory))
+					&& !visitor.visit(factory)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @see CachingObjectExtension#findFirst(FactoryFilter)
+	 */
+	@Override
+	public F findFirst(FactoryFilter<T, F> filter) {
+		FactorySnapshot<T, F> current = getSnapshot();
+		
+		if (!current.getCollections().isEmpty()) {
+			List<F> factories = getFactories(filter);
+			return (factories.isEmpty()) ? (null) : (factories.get(0));
+		}
+		
+		List<F> factories = current.getFactories();
+		for (int i = 0; i < factories.size(); i++) {
+			F factory = factories.get(i);
+			if (filter == null || filter.acceptFactory(factory)) {
+				return factory;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @see CachingObjectExtension#countFactories(FactoryFilter)
+	 */
+	@Override
+	public int countFactories(FactoryFilter<T, F> filter) {
+		final int[] count = new int[1];
+		forEachFactory(filter, new FactoryVisitor<T, F>() {
+			
+			@Override
+			public boolean visit(F factory) {
+				count[0]++;
+				return true;
+			}
+		
+		});
+		return count[0];
+	}
+	
+	/**
+	 * @see CachingObjectExtension#getFactoriesAsync(FactoryFilter, Executor)
+	 */
+	@Override
+	public ListenableFuture<List<F>> getFactoriesAsync(
+			final FactoryFilter<T, F> filter, Executor executor) {
+		return submit(new Callable<List<F>>() {
+			
+			@Override
+			public List<F> call() throws Exception {
+				return getFactories(filter);
+			}
+		
+		}, executor);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#getFactoryAsync(String, Executor)
+	 */
+	@Override
+	public ListenableFuture<F> getFactoryAsync(final String id, Executor executor) {
+		return submit(new Callable<F>() {
+			
+			@Override
+			public F call() throws Exception {
+				return getFactory(id);
+			}
+		
+		}, executor);
+	}
+	
+	/**
+	 * Execute a query once the snapshot is available. If the snapshot
+	 * already exists the query is executed directly, otherwise it is
+	 * executed using the given executor after waiting for the snapshot
+	 * creation shared by all pending queries.
+	 * 
+	 * @param <V> the query result type
+	 * @param query the query
+	 * @param executor the executor, <code>null</code> for the shared query
+	 *   executor
+	 * @return the future query result
+	 */
+	private <V> ListenableFuture<V> submit(final Callable<V> query, Executor executor) {
+		final SettableFuture<V> result = SettableFuture.create();
+		
+		if (snapshot != null) {
+			complete(result, query);
+			return result;
+		}
+		
+		final FutureTask<FactorySnapshot<T, F>> creation = getSnapshotCreation();
+		Runnable task = new Runnable() {
+			
+			@Override
+			public void run() {
+				if (result.isCancelled()) {
+					return;
+				}
+				
+				// the first task to run creates the snapshot, the others wait
+				creation.run();
+				try {
+					getUninterruptibly(creation);
+				} catch (ExecutionException e) {
+					result.setException(e.getCause());
+					return;
+				}
+				
+				complete(result, query);
+			}
+		
+		};
+		
+		try {
+			((executor == null) ? (getSharedQueryExecutor()) : (executor)).execute(task);
+		} catch (RejectedExecutionException e) {
+			result.setException(e);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Complete a future with the result of a query
+	 * 
+	 * @param <V> the query result type
+	 * @param future the future to complete
+	 * @param query the query
 	 */
-	private final Map<String, F> factoryIdCache = new HashMap<String, F>();
+	private static <V> void complete(SettableFuture<V> future, Callable<V> query) {
+		try {
+			future.set(query.call());
+		} catch (Throwable e) {
+			future.setException(e);
+		}
+	}
 	
 	/**
-	 * Constructor
+	 * Get the pending snapshot creation, creates it if there is none
 	 * 
-	 * @param extensionPointID the extension point id
+	 * @return the snapshot creation task, it may already be running or
+	 *   completed
 	 */
-	public AbstractExtension(final String extensionPointID) {
-		this.extensionPointID = extensionPointID;
+	private FutureTask<FactorySnapshot<T, F>> getSnapshotCreation() {
+		while (true) {
+			FutureTask<FactorySnapshot<T, F>> task = snapshotCreation.get();
+			if (task != null) {
+				return task;
+			}
+			
+			task = new FutureTask<FactorySnapshot<T, F>>(new Callable<FactorySnapshot<T, F>>() {
+				
+				@Override
+				public FactorySnapshot<T, F> call() throws Exception {
+					return getSnapshot();
+				}
+			
+			}) {
+				
+				@Override
+				protected void done() {
+					snapshotCreation.compareAndSet(this, null);
+				}
+			
+			};
+			if (snapshotCreation.compareAndSet(null, task)) {
+				return task;
+			}
+		}
 	}
 	
+	/**
+	 * @see CachingObjectExtension#getView(FactoryFilter)
+	 */
 	@Override
-	public F getFactory(String id) {
-		F factory = factoryIdCache.get(id);
+	public FactoryView<T, F> getView(FactoryFilter<T, F> filter) {
+		if (filter == null) {
+			return new SnapshotFactoryView<T, F>(this, null);
+		}
 		
-		if (factory == null) {
-			getFactories(); // ensure that all factories are in the cache
-			factory = factoryIdCache.get(id);
+		SnapshotFactoryView<T, F> view = views.get(filter);
+		if (view == null) {
+			view = new SnapshotFactoryView<T, F>(this, filter);
+			SnapshotFactoryView<T, F> existing = views.putIfAbsent(filter, view);
+			if (existing != null) {
+				view = existing;
+			}
+		}
+		return view;
+	}
+	
+	/**
+	 * Add the factories of the given collections that are accepted by the
+	 * given filter to a list
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param collections the factory collections
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @param result the list to add the factories to
+	 * @return if any factory was added
+	 */
+	static <T, F extends ExtensionObjectFactory<T>> boolean addCollectionFactories(
+			List<ExtensionObjectFactoryCollection<T, F>> collections,
+			FactoryFilter<T, F> filter, List<F> result) {
+		boolean added = false;
+		for (ExtensionObjectFactoryCollection<T, F> collection : collections) {
+			if (filter == null || filter.acceptCollection(collection)) {
+				for (F collectionFactory : collection.getFactories()) {
+					if (filter == null || filter.acceptFactory(collectionFactory)) { 
+						result.add(collectionFactory);
+						added = true;
+					}
+				}
+			}
 		}
+		return added;
+	}
+	
+	/**
+	 * Create a new snapshot from the given partitions and publish it.
+	 * The caller must hold the {@link #updateLock}.
+	 * 
+	 * @param partitions the contributor partitions mapped by contributor name
+	 */
+	private void publish(Map<String, ContributorPartition<T, F>> partitions) {
+		snapshot = new FactorySnapshot<T, F>(++version, partitions);
 		
-		return factory;
+		if (persistentIndex) {
+			// write in the background, collapsing subsequent changes
+			if (indexJob == null) {
+				indexJob = new IndexJob(this);
+			}
+			indexJob.schedule(INDEX_WRITE_DELAY);
+		}
 	}
-
+	
 	/**
-	 * @see ObjectExtension#getFactories(FactoryFilter)
+	 * Store the definitions of the factories of the current snapshot in the
+	 * persistent index. Lazy factories are not created for this, their
+	 * definitions are read from the configuration elements.
 	 */
-	@Override
-	public List<F> getFactories(FactoryFilter<T, F> filter) {
-		IConfigurationElement[] confArray = Platform.getExtensionRegistry().getConfigurationElementsFor(extensionPointID);
+	private void storeIndex() {
+		FactorySnapshot<T, F> current = snapshot;
+		if (current == null || !persistentIndex) {
+			return;
+		}
 		
-		List<F> result = new ArrayList<F>();
+		try {
+			List<IndexedDefinition> definitions = new ArrayList<IndexedDefinition>();
+			for (ContributorPartition<T, F> partition : current.getPartitions().values()) {
+				for (F factory : partition.getFactories()) {
+					LazyFactoryHandler<?, ?> lazy = LazyFactoryHandler.getHandler(factory);
+					if (lazy != null) {
+						definitions.add(lazy.toIndexedDefinition());
+						continue;
+					}
+					
+					int priority = (factory instanceof Prioritizable) ? (((Prioritizable) factory)
+							.getPriority()) : (0);
+					definitions.add(new IndexedDefinition(factory.getIdentifier(),
+							factory.getDisplayName(), priority, factory.getTypeName(),
+							IndexedDefinition.toIconLocation(factory.getIconURL()),
+							partition.getContributor()));
+				}
+			}
+			DefinitionSortKey.sort(definitions);
+			
+			String fingerprint = ExtensionIndex.getFingerprint(
+					getExtensionRegistry(), extensionPointID);
+			ExtensionIndex.store(extensionPointID, fingerprint, definitions);
+		} catch (Exception e) {
+			log.warn("Error updating the extension index", e); //$NON-NLS-1$
+		}
+	}
+	
+	/**
+	 * Add contributions to contributor partitions. Only the partitions of
+	 * the contributors of the given extensions are created anew.
+	 * 
+	 * @param partitions the current partitions mapped by contributor name
+	 * @param contributions the contributions to add, mapped by extension
+	 * @return the new partitions mapped by contributor name
+	 */
+	private Map<String, ContributorPartition<T, F>> addToPartitions(
+			Map<String, ContributorPartition<T, F>> partitions,
+			Map<IExtension, List<FactoryContribution<T, F>>> contributions) {
+		// group by contributor
+		Map<String, Map<IExtension, List<FactoryContribution<T, F>>>> grouped = new LinkedHashMap<String, Map<IExtension, List<FactoryContribution<T, F>>>>();
+		for (Map.Entry<IExtension, List<FactoryContribution<T, F>>> entry : contributions.entrySet()) {
+			String contributor = entry.getKey().getContributor().getName();
+			Map<IExtension, List<FactoryContribution<T, F>>> group = grouped.get(contributor);
+			if (group == null) {
+				group = new LinkedHashMap<IExtension, List<FactoryContribution<T, F>>>();
+				grouped.put(contributor, group);
+			}
+			group.put(entry.getKey(), entry.getValue());
+		}
 		
-		for (IConfigurationElement conf : confArray) {
-			// factory
-			List<F> factories = getFactories(conf, filter);
-			if (factories != null) {
-				result.addAll(factories);
+		Map<String, ContributorPartition<T, F>> result = new LinkedHashMap<String, ContributorPartition<T, F>>(
+				partitions);
+		for (Map.Entry<String, Map<IExtension, List<FactoryContribution<T, F>>>> entry : grouped.entrySet()) {
+			ContributorPartition<T, F> partition = result.get(entry.getKey());
+			if (partition == null) {
+				partition = new ContributorPartition<T, F>(entry.getKey(), entry.getValue());
+			}
+			else {
+				partition = partition.with(entry.getValue());
 			}
+			result.put(entry.getKey(), partition);
+		}
+		return result;
+	}
+	
+	/**
+	 * Create the contributions for the configuration elements of the given
+	 * extensions. Depending on the configuration the contributions are
+	 * created sequentially or in parallel, the order of the result is the
+	 * same in both cases. When created in parallel, the calling thread
+	 * creates the contributions the executor has not started yet, so the
+	 * build completes even if the executor is saturated, e.g. by callers
+	 * waiting for this build. If the calling thread is a fork-join worker
+	 * the contributions are created sequentially.
+	 * 
+	 * @param extensions the extensions
+	 * @return the contributions mapped by extension, in the order of the
+	 *   extensions
+	 */
+	private Map<IExtension, List<FactoryContribution<T, F>>> createContributions(
+			IExtension[] extensions) {
+		Map<IExtension, IConfigurationElement[]> elements = new LinkedHashMap<IExtension, IConfigurationElement[]>();
+		int count = 0;
+		for (IExtension extension : extensions) {
+			IConfigurationElement[] confs = extension.getConfigurationElements();
+			elements.put(extension, confs);
+			count += confs.length;
 		}
 		
-		Collections.sort(result);
+		Map<IExtension, List<FactoryContribution<T, F>>> result = new LinkedHashMap<IExtension, List<FactoryContribution<T, F>>>();
+		if (parallelBuild && count > 1 && !ForkJoinTask.inForkJoinPool()) {
+			// start creating all contributions
+			Executor executor = buildExecutor;
+			if (executor == null) {
+				executor = getSharedBuildPool();
+			}
+			Map<IExtension, List<FutureTask<FactoryContribution<T, F>>>> tasks = new LinkedHashMap<IExtension, List<FutureTask<FactoryContribution<T, F>>>>();
+			for (Map.Entry<IExtension, IConfigurationElement[]> entry : elements.entrySet()) {
+				List<FutureTask<FactoryContribution<T, F>>> extensionTasks = new ArrayList<FutureTask<FactoryContribution<T, F>>>();
+				for (final IConfigurationElement conf : entry.getValue()) {
+					FutureTask<FactoryContribution<T, F>> task = new FutureTask<FactoryContribution<T, F>>(
+							new Callable<FactoryContribution<T, F>>() {
+								
+								@Override
+								public FactoryContribution<T, F> call() throws Exception {
+									return createContribution(conf);
+								}
+							
+							});
+					try {
+						executor.execute(task);
+					} catch (RejectedExecutionException e) {
+						// the task is run by the calling thread
+					}
+					extensionTasks.add(task);
+				}
+				tasks.put(entry.getKey(), extensionTasks);
+			}
+			
+			// run the tasks not yet started by the executor, beginning with
+			// the last ones as the executor starts with the first
+			List<List<FutureTask<FactoryContribution<T, F>>>> taskLists = new ArrayList<List<FutureTask<FactoryContribution<T, F>>>>(
+					tasks.values());
+			for (int i = taskLists.size() - 1; i >= 0; i--) {
+				List<FutureTask<FactoryContribution<T, F>>> extensionTasks = taskLists.get(i);
+				for (int j = extensionTasks.size() - 1; j >= 0; j--) {
+					// does nothing if the task was already started
+					extensionTasks.get(j).run();
+				}
+			}
+			
+			// collect the results in order
+			for (Map.Entry<IExtension, List<FutureTask<FactoryContribution<T, F>>>> entry : tasks.entrySet()) {
+				List<FactoryContribution<T, F>> contributions = new ArrayList<FactoryContribution<T, F>>();
+				for (FutureTask<FactoryContribution<T, F>> task : entry.getValue()) {
+					FactoryContribution<T, F> contribution = null;
+					try {
+						contribution = getUninterruptibly(task);
+					} catch (ExecutionException e) {
+						log.error("Error creating extension object factory", e.getCause()); //$NON-NLS-1$
+					}
+					if (contribution != null) {
+						contributions.add(contribution);
+					}
+				}
+				result.put(entry.getKey(), contributions);
+			}
+		}
+		else {
+			for (Map.Entry<IExtension, IConfigurationElement[]> entry : elements.entrySet()) {
+				List<FactoryContribution<T, F>> contributions = new ArrayList<FactoryContribution<T, F>>();
+				for (IConfigurationElement conf : entry.getValue()) {
+					FactoryContribution<T, F> contribution = createContribution(conf);
+					if (contribution != null) {
+						contributions.add(contribution);
+					}
+				}
+				result.put(entry.getKey(), contributions);
+			}
+		}
 		
 		return result;
 	}
 	
 	/**
-	 * @see ObjectExtension#getFactories()
+	 * Wait for the result of a task, even if the current thread is
+	 * interrupted. The interrupted state is restored afterwards. In a
+	 * fork/join pool the pool is informed about the blocked thread, so it
+	 * can compensate for it.
+	 * 
+	 * @param <V> the result type
+	 * @param task the task
+	 * @return the task result
+	 * @throws ExecutionException if the task failed
 	 */
-	@Override
-	public List<F> getFactories() {
-		return getFactories(null);
+	private static <V> V getUninterruptibly(FutureTask<V> task) throws ExecutionException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					if (!task.isDone() && ForkJoinTask.inForkJoinPool()) {
+						ForkJoinPool.managedBlock(new TaskBlocker(task));
+					}
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
-
+	
 	/**
-	 * Create factories for the given configuration element
+	 * Create the contribution for the given configuration element. If
+	 * {@link #getFactories(IConfigurationElement, FactoryFilter)} is
+	 * overridden, the contribution consists of the factories it returns.
 	 * 
 	 * @param conf the configuration element
-	 * @param filter the filter to apply, may be <code>null</code>
 	 *  
-	 * @return the created factories list or <code>null</code>
+	 * @return the contribution or <code>null</code> if creating it failed
 	 */
-	protected List<F> getFactories(IConfigurationElement conf, FactoryFilter<T, F> filter) {
+	private FactoryContribution<T, F> createContribution(IConfigurationElement conf) {
+		if (!factoriesOverridden.get(getClass())) {
+			return createElementContribution(conf);
+		}
+		
+		List<F> factories;
+		try {
+			factories = getFactories(conf, null);
+		} catch (RuntimeException e) {
+			log.error("Error creating extension object factories", e); //$NON-NLS-1$
+			return null;
+		}
+		return (factories == null) ? (null) : (new FactoryContribution<T, F>(conf,
+				new ArrayList<F>(factories)));
+	}
+	
+	/**
+	 * Create factory and factory collection for the given configuration
+	 * element
+	 * 
+	 * @param conf the configuration element
+	 *  
+	 * @return the contribution or <code>null</code> if creating it failed
+	 */
+	private FactoryContribution<T, F> createElementContribution(IConfigurationElement conf) {
+		if (quarantine.isBlocked(conf)) {
+			return null;
+		}
+		
 		try {
-			List<F> result = new ArrayList<F>();
+			F factory = resolvedFactories.get(conf);
+			if (factory == null) {
+				factory = createFactoryFor(conf);
+			}
+			ExtensionObjectFactoryCollection<T, F> collection = createCollection(conf);
 			
-			// factory
-			F factory = createFactory(conf);
-			if (factory != null 
-					&& (filter == null || filter.acceptFactory(factory))) {
-				result.add(factory);
-				factoryIdCache.put(factory.getIdentifier(), factory);
+			quarantine.succeeded(conf);
+			return new FactoryContribution<T, F>(conf, factory, collection);
+		} catch (Exception e) {
+			String idAttribute = getIdAttributeName();
+			quarantine.failed(conf, (idAttribute == null) ? (null)
+					: (conf.getAttribute(idAttribute)), e);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Retry creating the contributions of quarantined configuration
+	 * elements that are due and add them to the snapshot
+	 */
+	private void retryQuarantined() {
+		synchronized (updateLock) {
+			if (snapshot == null || !quarantine.isRetryDue()) {
+				return;
 			}
 			
-			// collection
-			ExtensionObjectFactoryCollection<T, F> collection = createCollection(conf);
-			if (collection != null
-					&& (filter == null || filter.acceptCollection(collection))) {
-				for (F collectionFactory : collection.getFactories()) {
-					if (filter == null || filter.acceptFactory(collectionFactory)) { 
-						result.add(collectionFactory);
-						factoryIdCache.put(collectionFactory.getIdentifier(), collectionFactory);
+			Map<IExtension, List<FactoryContribution<T, F>>> added = new LinkedHashMap<IExtension, List<FactoryContribution<T, F>>>();
+			for (IConfigurationElement conf : quarantine.getDue()) {
+				if (!conf.isValid()) {
+					// the registry listener will take care of it
+					quarantine.succeeded(conf);
+					continue;
+				}
+				
+				FactoryContribution<T, F> contribution = createContribution(conf);
+				if (contribution != null) {
+					IExtension extension = conf.getDeclaringExtension();
+					List<FactoryContribution<T, F>> contributions = added.get(extension);
+					if (contributions == null) {
+						contributions = new ArrayList<FactoryContribution<T, F>>();
+						ContributorPartition<T, F> partition = snapshot.getPartitions().get(
+								extension.getContributor().getName());
+						if (partition != null && partition.getContributions().containsKey(extension)) {
+							contributions.addAll(partition.getContributions().get(extension));
+						}
+						added.put(extension, contributions);
 					}
+					contributions.add(contribution);
 				}
 			}
 			
-			return result;
-		} catch (Exception e) {
-			log.error("Error creating extension object factory", e); //$NON-NLS-1$
+			if (!added.isEmpty()) {
+				publish(addToPartitions(snapshot.getPartitions(), added));
+			}
+		}
+	}
+	
+	/**
+	 * Get the configuration elements for which creating the factory or
+	 * factory collection failed. They are retried with increasing delays
+	 * and released when their contribution changes in the registry.
+	 * 
+	 * @return the quarantined contributions
+	 */
+	public List<QuarantinedContribution> getQuarantinedContributions() {
+		return quarantine.getContributions();
+	}
+	
+	/**
+	 * Retry the quarantined configuration elements immediately, regardless
+	 * of their backoff delay
+	 */
+	public void retryQuarantinedContributions() {
+		quarantine.expire();
+		retryQuarantined();
+	}
+	
+	/**
+	 * Create the factory for a configuration element, either a lazy proxy
+	 * or the actual factory
+	 * 
+	 * @param conf the configuration element
+	 * @return the created factory or <code>null</code>
+	 * @throws Exception if creating the factory failed
+	 */
+	private F createFactoryFor(IConfigurationElement conf) throws Exception {
+		LazyFactoryDescriptor<F> lazy = getLazyFactoryDescriptor();
+		if (lazy != null) {
+			return LazyFactoryHandler.createProxy(this, lazy, conf);
+		}
+		else {
+			return newFactory(conf);
+		}
+	}
+	
+	/**
+	 * Create the actual factory for a configuration element and record the
+	 * call in the {@link ExtensionMetrics}
+	 * 
+	 * @param conf the configuration element
+	 * @return the created factory or <code>null</code>
+	 * @throws Exception if creating the factory failed
+	 * @see #createFactory(IConfigurationElement)
+	 */
+	F newFactory(IConfigurationElement conf) throws Exception {
+		long start = ExtensionMetrics.start();
+		if (start == 0) {
+			return createFactory(conf);
 		}
 		
-		return null;
+		boolean error = true;
+		try {
+			F result = createFactory(conf);
+			error = false;
+			return result;
+		} finally {
+			ExtensionMetrics.record(extensionPointID, Operation.CREATE_FACTORY, start, error);
+		}
+	}
+	
+	/**
+	 * Discard the element index, the factories resolved using it and the
+	 * definitions loaded from the persistent index. The caller must hold
+	 * the {@link #updateLock}.
+	 */
+	private void invalidateIndex() {
+		elementIndex = null;
+		resolvedFactories.clear();
+		indexedDefinitions = null;
+	}
+	
+	/**
+	 * Called when extensions have been added to the extension point
+	 * 
+	 * @param extensions the added extensions
+	 */
+	private void extensionsAdded(IExtension[] extensions) {
+		synchronized (updateLock) {
+			invalidateIndex();
+			quarantine.release(Arrays.asList(extensions));
+			if (snapshot != null) {
+				publish(addToPartitions(snapshot.getPartitions(),
+						createContributions(extensions)));
+			}
+		}
+	}
+	
+	/**
+	 * Called when extensions have been removed from the extension point
+	 * 
+	 * @param extensions the removed extensions
+	 */
+	private void extensionsRemoved(IExtension[] extensions) {
+		synchronized (updateLock) {
+			invalidateIndex();
+			quarantine.release(Arrays.asList(extensions));
+			if (snapshot != null) {
+				// the removed extensions may no longer provide their
+				// contributor, so all partitions are checked
+				List<IExtension> removed = Arrays.asList(extensions);
+				Map<String, ContributorPartition<T, F>> partitions = new LinkedHashMap<String, ContributorPartition<T, F>>();
+				for (ContributorPartition<T, F> partition : snapshot.getPartitions().values()) {
+					partition = partition.without(removed);
+					if (!partition.isEmpty()) {
+						partitions.put(partition.getContributor(), partition);
+					}
+				}
+				publish(partitions);
+			}
+		}
+	}
+	
+	/**
+	 * Reload the factories of a contributor, e.g. after its bundle has
+	 * been updated. The factories of other contributors are not affected.
+	 * 
+	 * @param contributorName the contributor name
+	 */
+	public void reload(String contributorName) {
+		synchronized (updateLock) {
+			invalidateIndex();
+			quarantine.release(contributorName);
+			if (snapshot != null) {
+				List<IExtension> extensions = new ArrayList<IExtension>();
+				IExtensionPoint point = getRegistry().getExtensionPoint(extensionPointID);
+				if (point != null) {
+					for (IExtension extension : point.getExtensions()) {
+						if (contributorName.equals(extension.getContributor().getName())) {
+							extensions.add(extension);
+						}
+					}
+				}
+				
+				Map<String, ContributorPartition<T, F>> partitions = new LinkedHashMap<String, ContributorPartition<T, F>>(
+						snapshot.getPartitions());
+				partitions.remove(contributorName);
+				publish(addToPartitions(partitions, createContributions(
+						extensions.toArray(new IExtension[extensions.size()]))));
+			}
+		}
+	}
+	
+	/**
+	 * Get the sorted factories created for the configuration elements of a
+	 * contributor. Factories of factory collections are not included.
+	 * 
+	 * @param contributorName the contributor name
+	 * @return the factories of the contributor
+	 */
+	public List<F> getContributorFactories(String contributorName) {
+		return new ArrayList<F>(getSnapshot().getFactories(contributorName));
+	}
+	
+	/**
+	 * Get the names of the contributors that provide factories or factory
+	 * collections
+	 * 
+	 * @return the contributor names
+	 */
+	public Set<String> getContributors() {
+		return new LinkedHashSet<String>(getSnapshot().getContributors());
+	}
+	
+	/**
+	 * Dispose the extension. The registry listener is removed and the
+	 * factories are discarded. If the extension is used again, the
+	 * factories are created again and the listener is added again.
+	 */
+	public void dispose() {
+		synchronized (updateLock) {
+			if (listener != null) {
+				listener.unregister();
+				listener = null;
+			}
+			reset();
+		}
+	}
+	
+	/**
+	 * Reset the snapshot, it will be recreated on the next access
+	 */
+	private void reset() {
+		synchronized (updateLock) {
+			invalidateIndex();
+			quarantine.clear();
+			snapshot = null;
+		}
 	}
 
 	/**
-	 * @see ObjectExtension#getFactoryCollections()
+	 * Create factories for the given configuration element. When the
+	 * snapshot is built this is called for each configuration element with
+	 * a <code>null</code> filter if it is overridden, the returned
+	 * factories are then part of the snapshot and filters are applied to
+	 * them on queries. Factories of collections returned this way are not
+	 * updated when the collection changes.
+	 * 
+	 * @param conf the configuration element
+	 * @param filter the filter to apply, may be <code>null</code>
+	 *  
+	 * @return the created factories list or <code>null</code>
 	 */
-	@Override
-	public List<ExtensionObjectFactoryCollection<T, F>> getFactoryCollections() {
-		IConfigurationElement[] confArray = Platform.getExtensionRegistry().getConfigurationElementsFor(extensionPointID);
+	protected List<F> getFactories(IConfigurationElement conf, FactoryFilter<T, F> filter) {
+		FactoryContribution<T, F> contribution = createElementContribution(conf);
+		if (contribution == null) {
+			return null;
+		}
 		
-		List<ExtensionObjectFactoryCollection<T, F>> result = new ArrayList<ExtensionObjectFactoryCollection<T, F>>();
+		List<F> result = new ArrayList<F>();
 		
-		for (IConfigurationElement conf : confArray) {
-			ExtensionObjectFactoryCollection<T, F> collection;
-			try {
-				collection = createCollection(conf);
-			} catch (Exception e) {
-				log.error("Error creating factory collection", e); //$NON-NLS-1$
-				collection = null;
-			}
-			if (collection != null) {
-				result.add(collection);
+		for (F factory : contribution.getFactories()) {
+			if (filter == null || filter.acceptFactory(factory)) {
+				result.add(factory);
 			}
 		}
+		if (contribution.getCollection() != null) {
+			addCollectionFactories(Collections.singletonList(contribution.getCollection()),
+					filter, result);
+		}
 		
 		return result;
 	}
 
+	/**
+	 * @see ObjectExtension#getFactoryCollections()
+	 */
+	@Override
+	public List<ExtensionObjectFactoryCollection<T, F>> getFactoryCollections() {
+		return new ArrayList<ExtensionObjectFactoryCollection<T, F>>(
+				getSnapshot().getCollections());
+	}
+
 	/**
 	 * Create the factory collection for the given configuration element.
 	 * Override this method if your extension supports factory collections.
@@ -177,6 +1682,43 @@ public abstract class AbstractExtension<T, F extends ExtensionObjectFactory<T>>
 		return null;
 	}
 
+	/**
+	 * Get the descriptor for creating lazy factories. If a descriptor is
+	 * provided, the factories listed by the extension are proxies that
+	 * provide identifier, display name, priority and optionally icon and
+	 * type name from configuration element attributes.
+	 * {@link #createFactory(IConfigurationElement)} is only called when
+	 * another method of a factory is invoked, e.g.
+	 * {@link ExtensionObjectFactory#createExtensionObject()}.<br>
+	 * <br>
+	 * The default implementation returns <code>null</code>, i.e. factories
+	 * are created immediately. 
+	 * 
+	 * @return the lazy factory descriptor or <code>null</code>
+	 */
+	protected LazyFactoryDescriptor<F> getLazyFactoryDescriptor() {
+		return null;
+	}
+	
+	/**
+	 * Get the name of the configuration element attribute that holds the
+	 * factory identifier. If available it is used to resolve single
+	 * factories in {@link #getFactory(String)} without creating all
+	 * factories of the extension point.<br>
+	 * <br>
+	 * The default implementation returns the ID attribute of the
+	 * {@link #getLazyFactoryDescriptor()} or <code>null</code>.
+	 * 
+	 * @return the name of the ID attribute or <code>null</code> if unknown
+	 */
+	protected String getIdAttributeName() {
+		LazyFactoryDescriptor<F> lazy = getLazyFactoryDescriptor();
+		if (lazy != null) {
+			return lazy.getIdAttributeName();
+		}
+		return null;
+	}
+	
 	/**
 	 * Create factory for the given configuration element
 	 * 
@@ -19,18 +19,29 @@
 
 package de.fhg.igd.eclipse.util.extension;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * <p>Title: AbstractObjectInfo</p>
  * <p>Description: {@link ExtensionObjectDefinition} implementation that provides
  * {@link #equals(Object)} and {@link #hashCode()} implementations based
  * on {@link #getIdentifier()}.
  * The implementation of {@link #compareTo(ExtensionObjectDefinition)}
- * allows sorting by {@link #getPriority()}, @link #getDisplayName()} and
- * {@link #getIdentifier()} (ascending)</p>
+ * allows sorting by {@link #getPriority()}, {@link #getDisplayName()} and
+ * {@link #getIdentifier()} (ascending). The priority is only compared to
+ * that of other {@link AbstractObjectDefinition}s. The values are read
+ * once into a {@link DefinitionSortKey} on the first comparison,
+ * subclasses whose values change have to call {@link #resetSortKey()}.</p>
  * @author Simon Templer
  */
 public abstract class AbstractObjectDefinition implements ExtensionObjectDefinition, Prioritizable {
 	
+	/**
+	 * The sort key, created lazily as the values may depend on the state
+	 * of subclasses
+	 */
+	private final AtomicReference<DefinitionSortKey> sortKey = new AtomicReference<DefinitionSortKey>();
+	
 	/**
 	 * @see Prioritizable#getPriority()
 	 */
@@ -44,26 +55,35 @@ public abstract class AbstractObjectDefinition implements ExtensionObjectDefinit
 	 */
 	@Override
 	public int compareTo(ExtensionObjectDefinition other) {
-		if (this == other) return 0;
-		
 		if (other instanceof AbstractObjectDefinition) {
-			int otherPriority = ((Prioritizable) other).getPriority();
-			int priority = getPriority();
-			
-			if (priority < otherPriority) {
-				return -1;
-			}
-			else if (priority > otherPriority) {
-				return 1;
-			}
-		}
-		
-		if (getDisplayName().equals(other.getDisplayName())) {
-			return getIdentifier().compareTo(other.getIdentifier());
+			return getSortKey().compareTo(((AbstractObjectDefinition) other).getSortKey());
 		}
-		else {
-			return getDisplayName().compareTo(other.getDisplayName());
+		return DefinitionSortKey.compare(this, other);
+	}
+	
+	/**
+	 * Get the sort key, it is created from the priority, display name and
+	 * identifier on the first call
+	 * 
+	 * @return the sort key
+	 */
+	DefinitionSortKey getSortKey() {
+		DefinitionSortKey key = sortKey.get();
+		if (key == null) {
+			key = DefinitionSortKey.create(getPriority(), getDisplayName(), getIdentifier());
+			if (!sortKey.compareAndSet(null, key)) {
+				key = sortKey.get();
+			}
 		}
+		return key;
+	}
+	
+	/**
+	 * Discard the sort key, must be called if the priority, display name
+	 * or identifier change
+	 */
+	protected void resetSortKey() {
+		sortKey.set(null);
 	}
 
 	/**
@@ -0,0 +1,198 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * <p>Title: BundleGeneration</p>
+ * <p>Description: Counters per bundle that change whenever the bundle is
+ * installed, updated, resolved, unresolved or uninstalled, e.g. by a
+ * refresh. Caches of bundle resources compare it to the generation they
+ * were populated in to detect that they are stale.</p>
+ * <p>Bundle events are only tracked while this bundle is started, it is
+ * activated lazily when its classes are first used. When it is started
+ * again all generations change. Outside of OSGi bundles don't change and
+ * the generations stay the same.</p>
+ * @author Simon Templer
+ */
+public final class BundleGeneration {
+	
+	private static final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<String, AtomicLong>();
+	
+	/**
+	 * Changes whenever listening for bundle events starts, as events may
+	 * have been missed before
+	 */
+	private static volatile long epoch = 0;
+	
+	/**
+	 * If bundle events are tracked or don't need to be tracked, or no
+	 * attempt to start tracking them should be made
+	 */
+	private static volatile boolean settled = false;
+	
+	private static BundleContext context;
+	
+	/**
+	 * This bundle, <code>null</code> if not yet determined
+	 */
+	private static Bundle bundle;
+	
+	private static BundleListener listener;
+	
+	/**
+	 * Get the current generation of a bundle. Starts listening for bundle
+	 * events if possible and not done yet.
+	 * 
+	 * @param bundleName the bundle symbolic name
+	 * @return the current generation of the bundle
+	 */
+	public static long get(String bundleName) {
+		if (!settled) {
+			listen();
+		}
+		
+		AtomicLong generation = (bundleName == null) ? (null) : (generations.get(bundleName));
+		return (epoch << 32) + ((generation == null) ? (0) : (generation.get()));
+	}
+	
+	/**
+	 * Start listening for bundle events. Called by the bundle activator
+	 * when the bundle is started.
+	 * 
+	 * @param context the bundle context
+	 */
+	public static synchronized void start(BundleContext context) {
+		stop();
+		addListener(context);
+	}
+	
+	/**
+	 * Stop listening for bundle events. Called by the bundle activator when
+	 * the bundle is stopped.
+	 */
+	public static synchronized void stop() {
+		if (listener != null) {
+			try {
+				context.removeBundleListener(listener);
+			} catch (IllegalStateException e) {
+				// context no longer valid
+			}
+			listener = null;
+			context = null;
+		}
+		// don't start listening again without the activator
+		settled = true;
+	}
+	
+	/**
+	 * Add the bundle listener if possible. If this bundle is not started
+	 * yet, it is tried again on the next call.
+	 */
+	private static synchronized void listen() {
+		if (settled) {
+			return;
+		}
+		
+		if (bundle == null) {
+			bundle = FrameworkUtil.getBundle(BundleGeneration.class);
+			if (bundle == null) {
+				// not running in OSGi, bundles will not change
+				settled = true;
+				return;
+			}
+		}
+		
+		BundleContext context = bundle.getBundleContext();
+		if (context != null) {
+			addListener(context);
+		}
+	}
+	
+	/**
+	 * Add the bundle listener to the given context
+	 * 
+	 * @param context the bundle context
+	 */
+	private static void addListener(BundleContext context) {
+		BundleListener bundleListener = new BundleListener() {
+			
+			@Override
+			public void bundleChanged(BundleEvent event) {
+				switch (event.getType()) {
+				case BundleEvent.INSTALLED:
+				case BundleEvent.UPDATED:
+				case BundleEvent.RESOLVED:
+				case BundleEvent.UNRESOLVED:
+				case BundleEvent.UNINSTALLED:
+					increment(event.getBundle().getSymbolicName());
+					break;
+				default:
+					// not relevant for resources
+				}
+			}
+		
+		};
+		context.addBundleListener(bundleListener);
+		
+		BundleGeneration.context = context;
+		listener = bundleListener;
+		epoch++;
+		settled = true;
+	}
+	
+	/**
+	 * Increment the generation of a bundle
+	 * 
+	 * @param bundleName the bundle symbolic name
+	 */
+	private static void increment(String bundleName) {
+		if (bundleName == null) {
+			return;
+		}
+		
+		AtomicLong generation = generations.get(bundleName);
+		if (generation == null) {
+			generation = new AtomicLong();
+			AtomicLong existing = generations.putIfAbsent(bundleName, generation);
+			if (existing != null) {
+				generation = existing;
+			}
+		}
+		generation.incrementAndGet();
+	}
+	
+	/**
+	 * Hidden constructor
+	 */
+	private BundleGeneration() {
+		super();
+	}
+
+}
@@ -0,0 +1,127 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * <p>Title: CachingObjectExtension</p>
+ * <p>Description: {@link ObjectExtension} that caches its factories and
+ * provides additional queries on them, see {@link AbstractExtension}.
+ * {@link ObjectExtensionUtil} provides the same queries for any
+ * {@link ObjectExtension}.</p>
+ * @param <T> the extension object type
+ * @param <F> the factory type
+ * @author Simon Templer
+ */
+public interface CachingObjectExtension<T, F extends ExtensionObjectFactory<T>>
+	extends ObjectExtension<T, F> {
+	
+	/**
+	 * Register a filter and get a live view on the factories accepted by
+	 * it. The filtered and sorted factories are cached by the view and only
+	 * determined again when the factories change. Calling this method again
+	 * with the same filter yields the same view as long as it is still
+	 * referenced.
+	 * 
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * 
+	 * @return the factory view
+	 */
+	public FactoryView<T, F> getView(FactoryFilter<T, F> filter);
+	
+	/**
+	 * Visit the factories accepted by the given filter in the same order
+	 * as returned by {@link #getFactories(FactoryFilter)}, without creating
+	 * a list of the factories. 
+	 * 
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @param visitor the factory visitor
+	 * 
+	 * @return <code>false</code> if the iteration was stopped by the
+	 *   visitor, <code>true</code> otherwise
+	 */
+	public boolean forEachFactory(FactoryFilter<T, F> filter, FactoryVisitor<T, F> visitor);
+	
+	/**
+	 * Get the first factory accepted by the given filter, i.e. the first
+	 * element of {@link #getFactories(FactoryFilter)}
+	 * 
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * 
+	 * @return the first accepted factory or <code>null</code>
+	 */
+	public F findFirst(FactoryFilter<T, F> filter);
+	
+	/**
+	 * Count the factories accepted by the given filter
+	 * 
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * 
+	 * @return the number of accepted factories
+	 */
+	public int countFactories(FactoryFilter<T, F> filter);
+	
+	/**
+	 * Get the factories accepted by the given filter asynchronously. If
+	 * the factories have to be created first, this is done using the given
+	 * executor, concurrent requests share the same computation. Use this
+	 * e.g. on the display thread to avoid blocking while classes are loaded.
+	 * 
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @param executor the executor to use, <code>null</code> for a shared
+	 *   default executor. It is separate from the pool used for building
+	 *   in parallel, so queries may be issued from build tasks.
+	 * 
+	 * @return the future list of factories
+	 * @see #getFactories(FactoryFilter)
+	 */
+	public ListenableFuture<List<F>> getFactoriesAsync(FactoryFilter<T, F> filter,
+			Executor executor);
+	
+	/**
+	 * Get the factory with the given ID asynchronously
+	 * 
+	 * @param id the factory ID
+	 * @param executor the executor to use, <code>null</code> for a shared
+	 *   default executor
+	 * 
+	 * @return the future factory, yields <code>null</code> if there is no
+	 *   factory with that ID
+	 * @see #getFactory(String)
+	 * @see #getFactoriesAsync(FactoryFilter, Executor)
+	 */
+	public ListenableFuture<F> getFactoryAsync(String id, Executor executor);
+	
+	/**
+	 * Get the version of the factories. The version changes whenever
+	 * the factories provided by the extension registry change, so callers
+	 * can cheaply determine if factories they retrieved earlier are still
+	 * up to date. Changes to factory collections are not reflected in the
+	 * version.
+	 * 
+	 * @return the factories version
+	 */
+	public long getVersion();
+
+}
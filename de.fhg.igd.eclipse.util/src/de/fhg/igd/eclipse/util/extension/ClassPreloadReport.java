@@ -0,0 +1,181 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Title: ClassPreloadReport</p>
+ * <p>Description: Result of preloading the classes contributed to an
+ * extension point with the {@link ClassPreloader}</p>
+ * @author Simon Templer
+ */
+public final class ClassPreloadReport {
+	
+	/**
+	 * Result for a single class
+	 */
+	public static final class Entry {
+		
+		private final String contributor;
+		
+		private final String className;
+		
+		private final long nanos;
+		
+		private final Throwable failure;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param contributor the contributor name
+		 * @param className the class name
+		 * @param nanos the time needed for loading in nanoseconds
+		 * @param failure the failure, <code>null</code> if the class was
+		 *   loaded successfully
+		 */
+		Entry(String contributor, String className, long nanos, Throwable failure) {
+			super();
+			this.contributor = contributor;
+			this.className = className;
+			this.nanos = nanos;
+			this.failure = failure;
+		}
+		
+		/**
+		 * @return the name of the contributor of the class
+		 */
+		public String getContributor() {
+			return contributor;
+		}
+		
+		/**
+		 * @return the class name
+		 */
+		public String getClassName() {
+			return className;
+		}
+		
+		/**
+		 * @return the time needed for loading and linking the class in
+		 *   nanoseconds
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+		
+		/**
+		 * @return the failure or <code>null</code> if the class was loaded
+		 *   successfully
+		 */
+		public Throwable getFailure() {
+			return failure;
+		}
+		
+		/**
+		 * @see Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return className + " (" + contributor + "): " //$NON-NLS-1$ //$NON-NLS-2$
+					+ ((failure == null) ? ((nanos / 1000) + " us") : (failure.toString())); //$NON-NLS-1$
+		}
+	
+	}
+	
+	private final String extensionPointID;
+	
+	private final List<Entry> entries;
+	
+	private final long nanos;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @param entries the results for the single classes
+	 * @param nanos the overall time in nanoseconds
+	 */
+	ClassPreloadReport(String extensionPointID, List<Entry> entries, long nanos) {
+		super();
+		this.extensionPointID = extensionPointID;
+		this.entries = Collections.unmodifiableList(new ArrayList<Entry>(entries));
+		this.nanos = nanos;
+	}
+	
+	/**
+	 * @return the extension point ID
+	 */
+	public String getExtensionPointID() {
+		return extensionPointID;
+	}
+	
+	/**
+	 * @return the results for all classes
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+	
+	/**
+	 * @return the results for the classes that could not be loaded
+	 */
+	public List<Entry> getFailures() {
+		List<Entry> result = new ArrayList<Entry>();
+		for (Entry entry : entries) {
+			if (entry.failure != null) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @return if all classes were loaded successfully
+	 */
+	public boolean isSuccessful() {
+		for (Entry entry : entries) {
+			if (entry.failure != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return the overall time needed in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+	
+	/**
+	 * @see Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Preloaded " + entries.size() + " classes for " + extensionPointID //$NON-NLS-1$ //$NON-NLS-2$
+				+ " in " + (nanos / 1000000) + " ms, " + getFailures().size() //$NON-NLS-1$ //$NON-NLS-2$
+				+ " failed"; //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,219 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * <p>Title: ClassPreloader</p>
+ * <p>Description: Loads the classes contributed to an extension point in
+ * parallel, e.g. to detect missing classes and dependencies before going
+ * live and to have class loading done before the first request. Besides
+ * the classes themselves the types used in their signatures are resolved.
+ * Classes are only verified and linked if they are initialized.</p>
+ * @author Simon Templer
+ */
+public abstract class ClassPreloader {
+	
+	/**
+	 * Preload the classes contributed to an extension point using as many
+	 * threads as processors are available. Classes are loaded, but not
+	 * initialized, so no static initializers are run.
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @param classAttributeName the name of the attribute containing the
+	 *   class name
+	 * @return the preload report
+	 * @throws InterruptedException if the thread is interrupted while
+	 *   waiting for the classes to be loaded
+	 */
+	public static ClassPreloadReport preload(String extensionPointID,
+			String classAttributeName) throws InterruptedException {
+		return preload(Platform.getExtensionRegistry(), extensionPointID,
+				classAttributeName, Runtime.getRuntime().availableProcessors(), false);
+	}
+	
+	/**
+	 * Preload the classes contributed to an extension point. Classes are
+	 * loaded through the class cache used when creating extension objects,
+	 * so later lookups are served from it.
+	 * 
+	 * @param registry the extension registry
+	 * @param extensionPointID the extension point ID
+	 * @param classAttributeName the name of the attribute containing the
+	 *   class name
+	 * @param parallelism the maximum number of threads to use
+	 * @param initialize if the classes should be initialized, i.e. their
+	 *   static initializers be run, which also verifies and links them
+	 * @return the preload report
+	 * @throws InterruptedException if the thread is interrupted while
+	 *   waiting for the classes to be loaded
+	 */
+	public static ClassPreloadReport preload(IExtensionRegistry registry,
+			String extensionPointID, final String classAttributeName,
+			int parallelism, final boolean initialize) throws InterruptedException {
+		long start = System.nanoTime();
+		
+		// read the registry on the calling thread
+		List<Callable<ClassPreloadReport.Entry>> tasks = new ArrayList<Callable<ClassPreloadReport.Entry>>();
+		for (IConfigurationElement conf : registry.getConfigurationElementsFor(extensionPointID)) {
+			String name = getClassName(conf.getAttribute(classAttributeName));
+			if (name == null) {
+				continue;
+			}
+			
+			// the class may be given as bundle/class
+			String bundle = conf.getContributor().getName();
+			int index = name.indexOf('/');
+			if (index >= 0) {
+				bundle = name.substring(0, index).trim();
+				name = name.substring(index + 1).trim();
+			}
+			final String contributor = bundle;
+			final String className = name;
+			
+			tasks.add(new Callable<ClassPreloadReport.Entry>() {
+				
+				@Override
+				public ClassPreloadReport.Entry call() throws Exception {
+					return load(contributor, className, initialize);
+				}
+			
+			});
+		}
+		
+		List<ClassPreloadReport.Entry> entries = new ArrayList<ClassPreloadReport.Entry>();
+		if (!tasks.isEmpty()) {
+			ExecutorService executor = Executors.newFixedThreadPool(
+					Math.max(1, Math.min(parallelism, tasks.size())),
+					new PreloadThreadFactory(extensionPointID));
+			try {
+				for (Future<ClassPreloadReport.Entry> future : executor.invokeAll(tasks)) {
+					try {
+						entries.add(future.get());
+					} catch (ExecutionException e) {
+						// load does not throw
+						throw new IllegalStateException(e.getCause());
+					}
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		
+		return new ClassPreloadReport(extensionPointID, entries, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Load a class and resolve the types used in its signatures
+	 * 
+	 * @param contributor the name of the bundle to load the class from
+	 * @param className the class name
+	 * @param initialize if the class should be initialized
+	 * @return the result
+	 */
+	private static ClassPreloadReport.Entry load(String contributor,
+			String className, boolean initialize) {
+		long start = System.nanoTime();
+		Throwable failure = null;
+		try {
+			Class<?> type = ExtensionUtil.loadClass(contributor, className);
+			if (type == null) {
+				throw new ClassNotFoundException(className + " not found in " + contributor); //$NON-NLS-1$
+			}
+			if (initialize) {
+				Class.forName(type.getName(), true, type.getClassLoader());
+			}
+			// resolve the types used in signatures, fails if dependencies
+			// are missing
+			type.getDeclaredConstructors();
+			type.getDeclaredMethods();
+			type.getDeclaredFields();
+		} catch (Throwable e) {
+			failure = e;
+		}
+		return new ClassPreloadReport.Entry(contributor, className,
+				System.nanoTime() - start, failure);
+	}
+	
+	/**
+	 * Get the class name from a class attribute value
+	 * 
+	 * @param value the attribute value, may be <code>null</code>
+	 * @return the class name without initialization data or
+	 *   <code>null</code>
+	 */
+	private static String getClassName(String value) {
+		if (value == null) {
+			return null;
+		}
+		
+		int index = value.indexOf(':');
+		if (index >= 0) {
+			value = value.substring(0, index);
+		}
+		value = value.trim();
+		return (value.isEmpty()) ? (null) : (value);
+	}
+	
+	/**
+	 * Creates daemon threads for preloading
+	 */
+	private static class PreloadThreadFactory implements ThreadFactory {
+		
+		private final String name;
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param extensionPointID the extension point ID
+		 */
+		public PreloadThreadFactory(String extensionPointID) {
+			super();
+			this.name = "Preload " + extensionPointID + " #"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		
+		/**
+		 * @see ThreadFactory#newThread(Runnable)
+		 */
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, name + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	
+	}
+
+}
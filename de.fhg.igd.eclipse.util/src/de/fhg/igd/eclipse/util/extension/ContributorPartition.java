@@ -0,0 +1,148 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IExtension;
+
+/**
+ * <p>Title: ContributorPartition</p>
+ * <p>Description: Immutable part of a {@link FactorySnapshot} holding the
+ * contributions of a single contributor. When a contributor changes only
+ * its partition is created anew, the partitions of the other contributors
+ * are reused.</p>
+ * @param <T> the extension object type
+ * @param <F> the factory type
+ * @author Simon Templer
+ */
+final class ContributorPartition<T, F extends ExtensionObjectFactory<T>> {
+	
+	private final String contributor;
+	
+	private final Map<IExtension, List<FactoryContribution<T, F>>> contributions;
+	
+	private final List<F> factories;
+	
+	private final List<ExtensionObjectFactoryCollection<T, F>> collections;
+	
+	/**
+	 * Create a partition
+	 * 
+	 * @param contributor the contributor name
+	 * @param contributions the contributions mapped by extension, the map
+	 *   is copied
+	 */
+	public ContributorPartition(String contributor,
+			Map<IExtension, List<FactoryContribution<T, F>>> contributions) {
+		super();
+		this.contributor = contributor;
+		this.contributions = Collections.unmodifiableMap(
+				new LinkedHashMap<IExtension, List<FactoryContribution<T, F>>>(contributions));
+		
+		List<F> factories = new ArrayList<F>();
+		List<ExtensionObjectFactoryCollection<T, F>> collections = new ArrayList<ExtensionObjectFactoryCollection<T, F>>();
+		for (List<FactoryContribution<T, F>> extensionContributions : contributions.values()) {
+			for (FactoryContribution<T, F> contribution : extensionContributions) {
+				factories.addAll(contribution.getFactories());
+				if (contribution.getCollection() != null) {
+					collections.add(contribution.getCollection());
+				}
+			}
+		}
+		DefinitionSortKey.sort(factories);
+		
+		this.factories = Collections.unmodifiableList(factories);
+		this.collections = Collections.unmodifiableList(collections);
+	}
+	
+	/**
+	 * Create a partition that additionally contains the given contributions.
+	 * Contributions for extensions already contained in the partition are
+	 * replaced.
+	 * 
+	 * @param added the contributions to add, mapped by extension
+	 * @return the new partition
+	 */
+	public ContributorPartition<T, F> with(
+			Map<IExtension, List<FactoryContribution<T, F>>> added) {
+		Map<IExtension, List<FactoryContribution<T, F>>> result = new LinkedHashMap<IExtension, List<FactoryContribution<T, F>>>(
+				contributions);
+		result.putAll(added);
+		return new ContributorPartition<T, F>(contributor, result);
+	}
+	
+	/**
+	 * Create a partition without the contributions of the given extensions
+	 * 
+	 * @param removed the extensions to remove
+	 * @return the new partition or this partition if it contains none of the
+	 *   extensions
+	 */
+	public ContributorPartition<T, F> without(Collection<IExtension> removed) {
+		Map<IExtension, List<FactoryContribution<T, F>>> result = new LinkedHashMap<IExtension, List<FactoryContribution<T, F>>>(
+				contributions);
+		if (!result.keySet().removeAll(removed)) {
+			return this;
+		}
+		return new ContributorPartition<T, F>(contributor, result);
+	}
+	
+	/**
+	 * @return the contributor name
+	 */
+	public String getContributor() {
+		return contributor;
+	}
+	
+	/**
+	 * @return the unmodifiable map of contributions by extension
+	 */
+	public Map<IExtension, List<FactoryContribution<T, F>>> getContributions() {
+		return contributions;
+	}
+	
+	/**
+	 * @return if the partition contains no contributions
+	 */
+	public boolean isEmpty() {
+		return contributions.isEmpty();
+	}
+	
+	/**
+	 * @return the unmodifiable sorted list of factories
+	 */
+	public List<F> getFactories() {
+		return factories;
+	}
+	
+	/**
+	 * @return the unmodifiable list of factory collections
+	 */
+	public List<ExtensionObjectFactoryCollection<T, F>> getCollections() {
+		return collections;
+	}
+
+}
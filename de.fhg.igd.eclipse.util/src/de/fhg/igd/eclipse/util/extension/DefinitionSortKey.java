@@ -0,0 +1,246 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.lang.reflect.Method;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Title: DefinitionSortKey</p>
+ * <p>Description: Composite sort key of an {@link ExtensionObjectDefinition},
+ * consisting of the priority, the collation key of the display name and
+ * the identifier. The order is that of
+ * {@link AbstractObjectDefinition#compareTo(ExtensionObjectDefinition)}:
+ * definitions are ordered by priority, display name and identifier
+ * (ascending), display names are compared with the collator of the
+ * default locale. Comparing keys does not allocate.
+ * {@link #sort(List)} sorts definitions by their keys.</p>
+ * @author Simon Templer
+ */
+public final class DefinitionSortKey implements Comparable<DefinitionSortKey> {
+	
+	/**
+	 * Definition with its sort key
+	 */
+	private static class Entry<D> implements Comparable<Entry<D>> {
+		
+		private final D definition;
+		
+		private final DefinitionSortKey key;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param definition the definition
+		 * @param key the sort key of the definition
+		 */
+		public Entry(D definition, DefinitionSortKey key) {
+			super();
+			this.definition = definition;
+			this.key = key;
+		}
+		
+		/**
+		 * @see Comparable#compareTo(Object)
+		 */
+		@Override
+		public int compareTo(Entry<D> other) {
+			return key.compareTo(other.key);
+		}
+	
+	}
+	
+	/**
+	 * States for each class if it uses the order defined by
+	 * {@link AbstractObjectDefinition}
+	 */
+	private static final ClassValue<Boolean> defaultOrder = new ClassValue<Boolean>() {
+		
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			if (!AbstractObjectDefinition.class.isAssignableFrom(type)) {
+				return false;
+			}
+			try {
+				Method method = type.getMethod("compareTo", ExtensionObjectDefinition.class); //$NON-NLS-1$
+				return method.getDeclaringClass() == AbstractObjectDefinition.class;
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+	
+	};
+	
+	/**
+	 * The collator for the display names, keys are only comparable if
+	 * created by the same collator
+	 */
+	private static final Collator collator = Collator.getInstance();
+	
+	private final int priority;
+	
+	private final CollationKey name;
+	
+	private final String identifier;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param priority the priority
+	 * @param name the display name
+	 * @param identifier the identifier
+	 */
+	private DefinitionSortKey(int priority, String name, String identifier) {
+		super();
+		this.priority = priority;
+		synchronized (collator) {
+			this.name = collator.getCollationKey((name == null) ? ("") : (name)); //$NON-NLS-1$
+		}
+		this.identifier = (identifier == null) ? ("") : (identifier); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Create a sort key
+	 * 
+	 * @param priority the priority
+	 * @param displayName the display name
+	 * @param identifier the identifier
+	 * @return the sort key
+	 */
+	public static DefinitionSortKey create(int priority, String displayName,
+			String identifier) {
+		return new DefinitionSortKey(priority, displayName, identifier);
+	}
+	
+	/**
+	 * Get the sort key of a definition. The keys of
+	 * {@link AbstractObjectDefinition}s and lazy factories are cached,
+	 * for other definitions the key is created from their current values.
+	 * 
+	 * @param definition the extension object definition
+	 * @return the sort key
+	 */
+	public static DefinitionSortKey of(ExtensionObjectDefinition definition) {
+		if (definition instanceof AbstractObjectDefinition) {
+			return ((AbstractObjectDefinition) definition).getSortKey();
+		}
+		LazyFactoryHandler<?, ?> lazy = LazyFactoryHandler.getHandler(definition);
+		if (lazy != null) {
+			return lazy.getSortKey();
+		}
+		
+		int priority = (definition instanceof Prioritizable) 
+				? (((Prioritizable) definition).getPriority()) : (0);
+		return create(priority, definition.getDisplayName(), definition.getIdentifier());
+	}
+	
+	/**
+	 * Compare two definitions in the order defined by
+	 * {@link AbstractObjectDefinition#compareTo(ExtensionObjectDefinition)}.
+	 * The priority is only compared if the other definition is an
+	 * {@link AbstractObjectDefinition} or a lazy factory.
+	 * 
+	 * @param definition the definition
+	 * @param other the definition to compare to
+	 * @return the comparison result
+	 */
+	public static int compare(ExtensionObjectDefinition definition,
+			ExtensionObjectDefinition other) {
+		if (definition == other) return 0;
+		
+		if (other instanceof AbstractObjectDefinition
+				|| LazyFactoryHandler.getHandler(other) != null) {
+			return of(definition).compareTo(of(other));
+		}
+		
+		// names and identifiers only
+		return create(0, definition.getDisplayName(), definition.getIdentifier())
+				.compareTo(create(0, other.getDisplayName(), other.getIdentifier()));
+	}
+	
+	/**
+	 * Sort definitions in their natural order. If all definitions use the
+	 * order of {@link AbstractObjectDefinition}, their sort keys are
+	 * compared instead of the definitions, otherwise the definitions are
+	 * compared directly.
+	 * 
+	 * @param <D> the definition type
+	 * @param definitions the definitions to sort
+	 */
+	public static <D extends ExtensionObjectDefinition> void sort(List<D> definitions) {
+		if (definitions.size() < 2) {
+			return;
+		}
+		
+		List<Entry<D>> entries = new ArrayList<Entry<D>>(definitions.size());
+		for (D definition : definitions) {
+			if (!usesDefaultOrder(definition)) {
+				Collections.sort(definitions);
+				return;
+			}
+			entries.add(new Entry<D>(definition, of(definition)));
+		}
+		
+		Collections.sort(entries);
+		
+		for (int i = 0; i < entries.size(); i++) {
+			definitions.set(i, entries.get(i).definition);
+		}
+	}
+	
+	/**
+	 * Determine if a definition uses the order defined by
+	 * {@link AbstractObjectDefinition}
+	 * 
+	 * @param definition the definition
+	 * @return if the definition is ordered by its sort key
+	 */
+	private static boolean usesDefaultOrder(ExtensionObjectDefinition definition) {
+		return definition != null && (defaultOrder.get(definition.getClass())
+				|| LazyFactoryHandler.getHandler(definition) != null);
+	}
+	
+	/**
+	 * @see Comparable#compareTo(Object)
+	 */
+	@Override
+	public int compareTo(DefinitionSortKey other) {
+		if (this == other) return 0;
+		
+		if (priority < other.priority) {
+			return -1;
+		}
+		else if (priority > other.priority) {
+			return 1;
+		}
+		
+		int result = name.compareTo(other.name);
+		if (result != 0) {
+			return result;
+		}
+		
+		return identifier.compareTo(other.identifier);
+	}
+
+}
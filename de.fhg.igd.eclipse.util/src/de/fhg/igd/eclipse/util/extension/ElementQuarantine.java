@@ -0,0 +1,322 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.slf4j.Logger;
+
+/**
+ * <p>Title: ElementQuarantine</p>
+ * <p>Description: Tracks configuration elements for which creating a
+ * factory failed. Failed elements are retried with exponential backoff,
+ * only the first failure is logged with its stack trace and further
+ * failures are logged at most once per {@link #LOG_INTERVAL}.</p>
+ * @author Simon Templer
+ */
+final class ElementQuarantine {
+	
+	/**
+	 * Quarantine state of an element
+	 */
+	private static class Entry {
+		
+		private final IConfigurationElement element;
+		
+		private final IExtension extension;
+		
+		private final String contributor;
+		
+		private final String identifier;
+		
+		private int failures;
+		
+		private Throwable lastError;
+		
+		private long nextRetry;
+		
+		private long lastLogged;
+		
+		private int suppressed;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param element the configuration element
+		 * @param identifier the element identifier, may be <code>null</code>
+		 */
+		public Entry(IConfigurationElement element, String identifier) {
+			super();
+			this.element = element;
+			this.extension = element.getDeclaringExtension();
+			this.contributor = element.getContributor().getName();
+			this.identifier = identifier;
+		}
+	
+	}
+	
+	/**
+	 * The delay before the first retry in milliseconds
+	 */
+	static final long INITIAL_BACKOFF = 1000;
+	
+	/**
+	 * The maximum delay between retries in milliseconds
+	 */
+	static final long MAX_BACKOFF = 10 * 60 * 1000;
+	
+	/**
+	 * The minimum interval between log messages for an element in
+	 * milliseconds
+	 */
+	static final long LOG_INTERVAL = 60 * 1000;
+	
+	private final Logger log;
+	
+	private final Map<IConfigurationElement, Entry> entries = new LinkedHashMap<IConfigurationElement, Entry>();
+	
+	/**
+	 * The earliest retry time of all entries, <code>0</code> if there are
+	 * none
+	 */
+	private volatile long nextRetry = 0;
+	
+	/**
+	 * Create a quarantine
+	 * 
+	 * @param log the logger for failures
+	 */
+	public ElementQuarantine(Logger log) {
+		super();
+		this.log = log;
+	}
+	
+	/**
+	 * Determine if an element is quarantined and may not be retried yet
+	 * 
+	 * @param element the configuration element
+	 * @return if the element should not be retried yet
+	 */
+	public boolean isBlocked(IConfigurationElement element) {
+		if (nextRetry == 0) {
+			return false;
+		}
+		
+		synchronized (this) {
+			Entry entry = entries.get(element);
+			return entry != null && System.currentTimeMillis() < entry.nextRetry;
+		}
+	}
+	
+	/**
+	 * Determine if the retry of any element is due
+	 * 
+	 * @return if any element should be retried
+	 */
+	public boolean isRetryDue() {
+		long next = nextRetry;
+		return next != 0 && System.currentTimeMillis() >= next;
+	}
+	
+	/**
+	 * Get the elements that are due for a retry
+	 * 
+	 * @return the configuration elements to retry
+	 */
+	public synchronized List<IConfigurationElement> getDue() {
+		long now = System.currentTimeMillis();
+		List<IConfigurationElement> result = new ArrayList<IConfigurationElement>();
+		for (Entry entry : entries.values()) {
+			if (now >= entry.nextRetry) {
+				result.add(entry.element);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Record a failure for an element
+	 * 
+	 * @param element the configuration element
+	 * @param identifier the element identifier, may be <code>null</code>
+	 * @param error the error
+	 */
+	public synchronized void failed(IConfigurationElement element,
+			String identifier, Throwable error) {
+		long now = System.currentTimeMillis();
+		
+		Entry entry = entries.get(element);
+		if (entry == null) {
+			try {
+				entry = new Entry(element, identifier);
+			} catch (Exception e) {
+				// element no longer valid
+				log.error("Error creating extension object factory", error); //$NON-NLS-1$
+				return;
+			}
+			entries.put(element, entry);
+		}
+		
+		entry.failures++;
+		entry.lastError = error;
+		long backoff = INITIAL_BACKOFF << Math.min(entry.failures - 1, 20);
+		entry.nextRetry = now + Math.min(backoff, MAX_BACKOFF);
+		
+		if (entry.failures == 1) {
+			log.error("Error creating extension object factory for " //$NON-NLS-1$
+					+ describe(entry) + ", retrying in " + (entry.nextRetry - now) + " ms", error); //$NON-NLS-1$ //$NON-NLS-2$
+			entry.lastLogged = now;
+		}
+		else if (now - entry.lastLogged >= LOG_INTERVAL) {
+			log.warn("Creating extension object factory for " + describe(entry) //$NON-NLS-1$
+					+ " failed " + entry.failures + " times (" + entry.suppressed //$NON-NLS-1$ //$NON-NLS-2$
+					+ " not logged), retrying in " + (entry.nextRetry - now) //$NON-NLS-1$
+					+ " ms: " + error); //$NON-NLS-1$
+			entry.lastLogged = now;
+			entry.suppressed = 0;
+		}
+		else {
+			entry.suppressed++;
+		}
+		
+		updateNextRetry();
+	}
+	
+	/**
+	 * Record a success for an element, releases it from the quarantine
+	 * 
+	 * @param element the configuration element
+	 */
+	public void succeeded(IConfigurationElement element) {
+		if (nextRetry == 0) {
+			return;
+		}
+		
+		synchronized (this) {
+			if (entries.remove(element) != null) {
+				updateNextRetry();
+			}
+		}
+	}
+	
+	/**
+	 * Release the elements of the given extensions
+	 * 
+	 * @param extensions the extensions
+	 */
+	public synchronized void release(Collection<IExtension> extensions) {
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			if (extensions.contains(it.next().extension)) {
+				it.remove();
+			}
+		}
+		updateNextRetry();
+	}
+	
+	/**
+	 * Release the elements of the given contributor
+	 * 
+	 * @param contributor the contributor name
+	 */
+	public synchronized void release(String contributor) {
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			if (contributor.equals(it.next().contributor)) {
+				it.remove();
+			}
+		}
+		updateNextRetry();
+	}
+	
+	/**
+	 * Make all elements due for a retry
+	 */
+	public synchronized void expire() {
+		long now = System.currentTimeMillis();
+		for (Entry entry : entries.values()) {
+			entry.nextRetry = Math.min(entry.nextRetry, now);
+		}
+		updateNextRetry();
+	}
+	
+	/**
+	 * Release all elements
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		nextRetry = 0;
+	}
+	
+	/**
+	 * Get the quarantined elements
+	 * 
+	 * @return the quarantined contributions
+	 */
+	public synchronized List<QuarantinedContribution> getContributions() {
+		List<QuarantinedContribution> result = new ArrayList<QuarantinedContribution>();
+		for (Entry entry : entries.values()) {
+			String elementName;
+			try {
+				elementName = entry.element.getName();
+			} catch (Exception e) {
+				// element no longer valid
+				elementName = null;
+			}
+			result.add(new QuarantinedContribution(entry.contributor, elementName,
+					entry.identifier, entry.failures, entry.lastError, entry.nextRetry));
+		}
+		return result;
+	}
+	
+	/**
+	 * Update the earliest retry time. The caller must hold the lock.
+	 */
+	private void updateNextRetry() {
+		long next = 0;
+		for (Entry entry : entries.values()) {
+			if (next == 0 || entry.nextRetry < next) {
+				next = entry.nextRetry;
+			}
+		}
+		nextRetry = next;
+	}
+	
+	/**
+	 * Describe an entry for logging
+	 * 
+	 * @param entry the quarantine entry
+	 * @return the entry description
+	 */
+	private static String describe(Entry entry) {
+		if (entry.identifier != null) {
+			return entry.identifier + " (" + entry.contributor + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return "element of " + entry.contributor; //$NON-NLS-1$
+	}
+
+}
@@ -0,0 +1,199 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * <p>Title: ElementSnapshot</p>
+ * <p>Description: Immutable copy of a configuration element with its
+ * attributes and child elements. Names and values are interned, so
+ * snapshots of many similar elements share their strings. Unlike the
+ * configuration element a snapshot can be read from any thread and stays
+ * readable after the contributor has been removed.</p>
+ * @author Simon Templer
+ */
+public final class ElementSnapshot {
+	
+	private static final Interner<String> strings = Interners.newWeakInterner();
+	
+	private static final String[] NO_STRINGS = new String[0];
+	
+	private static final ElementSnapshot[] NO_CHILDREN = new ElementSnapshot[0];
+	
+	private final String name;
+	
+	private final String contributor;
+	
+	private final String value;
+	
+	/**
+	 * Attribute names, the value of an attribute is at the same index in
+	 * {@link #attributeValues}
+	 */
+	private final String[] attributeNames;
+	
+	private final String[] attributeValues;
+	
+	private final ElementSnapshot[] children;
+	
+	/**
+	 * Create a snapshot of the given configuration element and its children
+	 * 
+	 * @param conf the configuration element
+	 * @return the element snapshot
+	 */
+	public static ElementSnapshot of(IConfigurationElement conf) {
+		return new ElementSnapshot(conf, intern(conf.getContributor().getName()));
+	}
+	
+	/**
+	 * Create a snapshot of the given configuration element
+	 * 
+	 * @param conf the configuration element
+	 * @param contributor the interned contributor name
+	 */
+	private ElementSnapshot(IConfigurationElement conf, String contributor) {
+		super();
+		this.name = intern(conf.getName());
+		this.contributor = contributor;
+		this.value = intern(conf.getValue());
+		
+		String[] names = conf.getAttributeNames();
+		if (names.length == 0) {
+			attributeNames = NO_STRINGS;
+			attributeValues = NO_STRINGS;
+		}
+		else {
+			attributeNames = new String[names.length];
+			attributeValues = new String[names.length];
+			for (int i = 0; i < names.length; i++) {
+				attributeNames[i] = intern(names[i]);
+				attributeValues[i] = intern(conf.getAttribute(names[i]));
+			}
+		}
+		
+		IConfigurationElement[] confChildren = conf.getChildren();
+		if (confChildren.length == 0) {
+			children = NO_CHILDREN;
+		}
+		else {
+			children = new ElementSnapshot[confChildren.length];
+			for (int i = 0; i < confChildren.length; i++) {
+				children[i] = new ElementSnapshot(confChildren[i], contributor);
+			}
+		}
+	}
+	
+	/**
+	 * Intern a string
+	 * 
+	 * @param value the string, may be <code>null</code>
+	 * @return the interned string or <code>null</code>
+	 */
+	private static String intern(String value) {
+		return (value == null) ? (null) : (strings.intern(value));
+	}
+	
+	/**
+	 * @return the element name
+	 * @see IConfigurationElement#getName()
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return the name of the contributor of the element
+	 * @see IConfigurationElement#getContributor()
+	 */
+	public String getContributor() {
+		return contributor;
+	}
+	
+	/**
+	 * @return the element text value, may be <code>null</code>
+	 * @see IConfigurationElement#getValue()
+	 */
+	public String getValue() {
+		return value;
+	}
+	
+	/**
+	 * Get the value of an attribute
+	 * 
+	 * @param attributeName the attribute name
+	 * @return the attribute value or <code>null</code> if the attribute is
+	 *   not defined
+	 * @see IConfigurationElement#getAttribute(String)
+	 */
+	public String getAttribute(String attributeName) {
+		for (int i = 0; i < attributeNames.length; i++) {
+			// names are interned, so try the identity check first
+			String candidate = attributeNames[i];
+			if (candidate == attributeName || candidate.equals(attributeName)) {
+				return attributeValues[i];
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return the names of the defined attributes
+	 * @see IConfigurationElement#getAttributeNames()
+	 */
+	public List<String> getAttributeNames() {
+		return Collections.unmodifiableList(Arrays.asList(attributeNames));
+	}
+	
+	/**
+	 * @return the child elements
+	 * @see IConfigurationElement#getChildren()
+	 */
+	public List<ElementSnapshot> getChildren() {
+		return Collections.unmodifiableList(Arrays.asList(children));
+	}
+	
+	/**
+	 * Get the child elements with the given name
+	 * 
+	 * @param childName the child element name
+	 * @return the child elements with that name
+	 * @see IConfigurationElement#getChildren(String)
+	 */
+	public List<ElementSnapshot> getChildren(String childName) {
+		List<ElementSnapshot> result = new ArrayList<ElementSnapshot>();
+		for (ElementSnapshot child : children) {
+			if (child.name.equals(childName)) {
+				result.add(child);
+			}
+		}
+		return result;
+	}
+
+}
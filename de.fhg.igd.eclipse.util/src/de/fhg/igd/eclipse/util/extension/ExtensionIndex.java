@@ -0,0 +1,266 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: ExtensionIndex</p>
+ * <p>Description: Persistent index of the extension object definitions of
+ * extension points, stored in the state area of this bundle. An index is
+ * only valid as long as its fingerprint matches the fingerprint of the
+ * extension point, that is computed from the IDs and versions of the
+ * contributing bundles and the current locale.</p>
+ * @author Simon Templer
+ */
+public abstract class ExtensionIndex {
+	
+	private static final Logger log = LoggerFactory.getLogger(ExtensionIndex.class);
+	
+	private static final String INDEX_FOLDER = "extension-index"; //$NON-NLS-1$
+	
+	private static final String KEY_FINGERPRINT = "fingerprint"; //$NON-NLS-1$
+	
+	private static final String KEY_COUNT = "count"; //$NON-NLS-1$
+	
+	private static final String KEY_ID = ".id"; //$NON-NLS-1$
+	
+	private static final String KEY_NAME = ".name"; //$NON-NLS-1$
+	
+	private static final String KEY_PRIORITY = ".priority"; //$NON-NLS-1$
+	
+	private static final String KEY_TYPE = ".type"; //$NON-NLS-1$
+	
+	private static final String KEY_ICON = ".icon"; //$NON-NLS-1$
+	
+	private static final String KEY_CONTRIBUTOR = ".contributor"; //$NON-NLS-1$
+	
+	/**
+	 * The version of the index format, part of the fingerprint
+	 */
+	private static final int FORMAT_VERSION = 2;
+	
+	/**
+	 * Compute the fingerprint of an extension point
+	 * 
+	 * @param registry the extension registry
+	 * @param extensionPointID the extension point ID
+	 * @return the fingerprint
+	 */
+	public static String getFingerprint(IExtensionRegistry registry, 
+			String extensionPointID) {
+		List<String> contributors = new ArrayList<String>();
+		IExtensionPoint point = registry.getExtensionPoint(extensionPointID);
+		if (point != null) {
+			for (IExtension extension : point.getExtensions()) {
+				String name = extension.getContributor().getName();
+				Bundle bundle = Platform.getBundle(name);
+				if (bundle != null) {
+					contributors.add(name + "_" + bundle.getVersion() //$NON-NLS-1$
+							+ "_" + bundle.getLastModified()); //$NON-NLS-1$
+				}
+				else {
+					contributors.add(name);
+				}
+			}
+		}
+		Collections.sort(contributors);
+		
+		StringBuilder content = new StringBuilder(extensionPointID);
+		content.append('|').append(FORMAT_VERSION);
+		content.append('|').append(Locale.getDefault());
+		for (String contributor : contributors) {
+			content.append('|').append(contributor);
+		}
+		
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			byte[] hash = digest.digest(content.toString().getBytes("UTF-8")); //$NON-NLS-1$
+			StringBuilder result = new StringBuilder();
+			for (byte b : hash) {
+				result.append(String.format("%02x", b)); //$NON-NLS-1$
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return content.toString();
+		} catch (UnsupportedEncodingException e) {
+			return content.toString();
+		}
+	}
+	
+	/**
+	 * Load the indexed definitions of an extension point
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @param fingerprint the current fingerprint of the extension point
+	 * @return the indexed definitions or <code>null</code> if there is no
+	 *   index or it does not match the fingerprint
+	 */
+	public static List<IndexedDefinition> load(String extensionPointID,
+			String fingerprint) {
+		File file = getIndexFile(extensionPointID);
+		if (file == null || !file.exists()) {
+			return null;
+		}
+		
+		Properties properties = new Properties();
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			log.warn("Error reading extension index", e); //$NON-NLS-1$
+			return null;
+		}
+		
+		if (!fingerprint.equals(properties.getProperty(KEY_FINGERPRINT))) {
+			return null;
+		}
+		
+		try {
+			int count = Integer.parseInt(properties.getProperty(KEY_COUNT));
+			List<IndexedDefinition> result = new ArrayList<IndexedDefinition>(count);
+			for (int i = 0; i < count; i++) {
+				String prefix = String.valueOf(i);
+				result.add(new IndexedDefinition(
+						properties.getProperty(prefix + KEY_ID),
+						properties.getProperty(prefix + KEY_NAME),
+						Integer.parseInt(properties.getProperty(prefix + KEY_PRIORITY, "0")), //$NON-NLS-1$
+						properties.getProperty(prefix + KEY_TYPE),
+						properties.getProperty(prefix + KEY_ICON),
+						properties.getProperty(prefix + KEY_CONTRIBUTOR)));
+			}
+			return result;
+		} catch (Exception e) {
+			log.warn("Invalid extension index", e); //$NON-NLS-1$
+			return null;
+		}
+	}
+	
+	/**
+	 * Store the definitions of an extension point in the index
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @param fingerprint the current fingerprint of the extension point
+	 * @param definitions the definitions to store
+	 */
+	public static void store(String extensionPointID, String fingerprint,
+			List<IndexedDefinition> definitions) {
+		File file = getIndexFile(extensionPointID);
+		if (file == null) {
+			return;
+		}
+		
+		Properties properties = new Properties();
+		properties.setProperty(KEY_FINGERPRINT, fingerprint);
+		properties.setProperty(KEY_COUNT, String.valueOf(definitions.size()));
+		int index = 0;
+		for (IndexedDefinition definition : definitions) {
+			String prefix = String.valueOf(index++);
+			setProperty(properties, prefix + KEY_ID, definition.getIdentifier());
+			setProperty(properties, prefix + KEY_NAME, definition.getDisplayName());
+			setProperty(properties, prefix + KEY_PRIORITY, String.valueOf(definition.getPriority()));
+			setProperty(properties, prefix + KEY_TYPE, definition.getTypeName());
+			setProperty(properties, prefix + KEY_ICON, definition.getIconLocation());
+			setProperty(properties, prefix + KEY_CONTRIBUTOR, definition.getContributor());
+		}
+		
+		try {
+			file.getParentFile().mkdirs();
+			// write to a temporary file first so readers never see a partial index
+			File temp = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+			OutputStream out = new FileOutputStream(temp);
+			try {
+				properties.store(out, extensionPointID);
+			} finally {
+				out.close();
+			}
+			if (!temp.renameTo(file)) {
+				file.delete();
+				if (!temp.renameTo(file)) {
+					log.warn("Could not replace extension index " + file); //$NON-NLS-1$
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Error writing extension index", e); //$NON-NLS-1$
+		}
+	}
+	
+	/**
+	 * Set a property if the value is not <code>null</code>
+	 * 
+	 * @param properties the properties
+	 * @param key the property key
+	 * @param value the property value, may be <code>null</code>
+	 */
+	private static void setProperty(Properties properties, String key, String value) {
+		if (value != null) {
+			properties.setProperty(key, value);
+		}
+	}
+	
+	/**
+	 * Get the index file for an extension point
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @return the index file or <code>null</code> if the state area of the
+	 *   bundle is not available
+	 */
+	private static File getIndexFile(String extensionPointID) {
+		Bundle bundle = FrameworkUtil.getBundle(ExtensionIndex.class);
+		if (bundle == null) {
+			return null;
+		}
+		
+		try {
+			File folder = new File(Platform.getStateLocation(bundle).toFile(), INDEX_FOLDER);
+			return new File(folder, extensionPointID + ".properties"); //$NON-NLS-1$
+		} catch (Exception e) {
+			// state location not available
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,626 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: ExtensionMetrics</p>
+ * <p>Description: Collects call counts, latencies, errors and cache
+ * hit/miss rates of extension lookups per extension point. Metrics are
+ * disabled by default and may be enabled using the system property
+ * <code>de.fhg.igd.eclipse.util.extension.metrics</code>, via
+ * {@link #setEnabled(boolean)} or via JMX. If disabled, recording a call
+ * only costs a volatile read.</p>
+ * <p>The metrics are available as {@link #getStatistics()} and through an
+ * MXBean registered as <code>de.fhg.igd.eclipse.util:type=ExtensionMetrics</code>
+ * when metrics are enabled for the first time.</p>
+ * @author Simon Templer
+ */
+public abstract class ExtensionMetrics {
+	
+	/**
+	 * Instrumented operations
+	 */
+	public static enum Operation {
+		/** {@link ObjectExtension#getFactories(FactoryFilter)} */
+		GET_FACTORIES,
+		/** {@link ObjectExtension#getFactory(String)} */
+		GET_FACTORY,
+		/** Creating a factory for a configuration element */
+		CREATE_FACTORY,
+		/** {@link ExtensionObjectFactory#createExtensionObject()} */
+		CREATE_EXTENSION_OBJECT,
+		/** {@link ExtensionObjectFactory#dispose(Object)} */
+		DISPOSE
+	}
+	
+	/**
+	 * Statistics of an operation
+	 */
+	public static final class OperationStatistics {
+		
+		private final Operation operation;
+		
+		private final long count;
+		
+		private final long errors;
+		
+		private final long totalNanos;
+		
+		private final long maxNanos;
+		
+		private final long[] histogram;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param operation the operation
+		 * @param count the number of calls
+		 * @param errors the number of failed calls
+		 * @param totalNanos the total time spent in nanoseconds
+		 * @param maxNanos the maximum time of a call in nanoseconds
+		 * @param histogram the call counts per latency bucket
+		 */
+		public OperationStatistics(Operation operation, long count,
+				long errors, long totalNanos, long maxNanos, long[] histogram) {
+			super();
+			this.operation = operation;
+			this.count = count;
+			this.errors = errors;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.histogram = histogram.clone();
+		}
+		
+		/**
+		 * @return the operation
+		 */
+		public Operation getOperation() {
+			return operation;
+		}
+		
+		/**
+		 * @return the number of calls
+		 */
+		public long getCount() {
+			return count;
+		}
+		
+		/**
+		 * @return the number of failed calls
+		 */
+		public long getErrors() {
+			return errors;
+		}
+		
+		/**
+		 * @return the total time spent in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+		
+		/**
+		 * @return the maximum time of a call in nanoseconds
+		 */
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+		
+		/**
+		 * @return the mean time of a call in nanoseconds
+		 */
+		public long getMeanNanos() {
+			return (count == 0) ? (0) : (totalNanos / count);
+		}
+		
+		/**
+		 * @return the call counts per latency bucket, see
+		 *   {@link ExtensionMetrics#HISTOGRAM_BOUNDS}
+		 */
+		public long[] getHistogram() {
+			return histogram.clone();
+		}
+	
+	}
+	
+	/**
+	 * Statistics of an extension point
+	 */
+	public static final class ExtensionPointStatistics {
+		
+		private final String extensionPointID;
+		
+		private final long cacheHits;
+		
+		private final long cacheMisses;
+		
+		private final List<OperationStatistics> operations;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param extensionPointID the extension point ID
+		 * @param cacheHits the number of cache hits
+		 * @param cacheMisses the number of cache misses
+		 * @param operations the operation statistics
+		 */
+		public ExtensionPointStatistics(String extensionPointID,
+				long cacheHits, long cacheMisses,
+				List<OperationStatistics> operations) {
+			super();
+			this.extensionPointID = extensionPointID;
+			this.cacheHits = cacheHits;
+			this.cacheMisses = cacheMisses;
+			this.operations = Collections.unmodifiableList(
+					new ArrayList<OperationStatistics>(operations));
+		}
+		
+		/**
+		 * @return the extension point ID
+		 */
+		public String getExtensionPointID() {
+			return extensionPointID;
+		}
+		
+		/**
+		 * @return the number of lookups served from the cache
+		 */
+		public long getCacheHits() {
+			return cacheHits;
+		}
+		
+		/**
+		 * @return the number of lookups that could not be served from the
+		 *   cache
+		 */
+		public long getCacheMisses() {
+			return cacheMisses;
+		}
+		
+		/**
+		 * @return the ratio of cache hits to all lookups
+		 */
+		public double getCacheHitRate() {
+			long total = cacheHits + cacheMisses;
+			return (total == 0) ? (0) : ((double) cacheHits / total);
+		}
+		
+		/**
+		 * @return the operation statistics
+		 */
+		public List<OperationStatistics> getOperations() {
+			return operations;
+		}
+	
+	}
+	
+	/**
+	 * Metrics of an operation
+	 */
+	private static class OperationMetrics {
+		
+		private final AtomicLong count = new AtomicLong();
+		
+		private final AtomicLong errors = new AtomicLong();
+		
+		private final AtomicLong totalNanos = new AtomicLong();
+		
+		private final AtomicLong maxNanos = new AtomicLong();
+		
+		private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BOUNDS.length + 1);
+		
+		/**
+		 * Record a call
+		 * 
+		 * @param nanos the duration in nanoseconds
+		 * @param error if the call failed
+		 */
+		public void record(long nanos, boolean error) {
+			count.incrementAndGet();
+			if (error) {
+				errors.incrementAndGet();
+			}
+			totalNanos.addAndGet(nanos);
+			
+			long max = maxNanos.get();
+			while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+				max = maxNanos.get();
+			}
+			
+			long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+			int bucket = 0;
+			while (bucket < HISTOGRAM_BOUNDS.length && micros >= HISTOGRAM_BOUNDS[bucket]) {
+				bucket++;
+			}
+			histogram.incrementAndGet(bucket);
+		}
+		
+		/**
+		 * Get the current statistics
+		 * 
+		 * @param operation the operation
+		 * @return the operation statistics
+		 */
+		public OperationStatistics getStatistics(Operation operation) {
+			long[] buckets = new long[histogram.length()];
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = histogram.get(i);
+			}
+			return new OperationStatistics(operation, count.get(),
+					errors.get(), totalNanos.get(), maxNanos.get(), buckets);
+		}
+	
+	}
+	
+	/**
+	 * Metrics of an extension point
+	 */
+	private static class PointMetrics {
+		
+		private final AtomicLong cacheHits = new AtomicLong();
+		
+		private final AtomicLong cacheMisses = new AtomicLong();
+		
+		private final Map<Operation, OperationMetrics> operations = new EnumMap<Operation, OperationMetrics>(
+				Operation.class);
+		
+		/**
+		 * Constructor
+		 */
+		public PointMetrics() {
+			super();
+			for (Operation operation : Operation.values()) {
+				operations.put(operation, new OperationMetrics());
+			}
+		}
+	
+	}
+	
+	/**
+	 * Management bean implementation
+	 */
+	private static class MXBean implements ExtensionMetricsMXBean {
+		
+		/**
+		 * @see ExtensionMetricsMXBean#isEnabled()
+		 */
+		@Override
+		public boolean isEnabled() {
+			return ExtensionMetrics.isEnabled();
+		}
+		
+		/**
+		 * @see ExtensionMetricsMXBean#setEnabled(boolean)
+		 */
+		@Override
+		public void setEnabled(boolean enabled) {
+			ExtensionMetrics.setEnabled(enabled);
+		}
+		
+		/**
+		 * @see ExtensionMetricsMXBean#getStatistics()
+		 */
+		@Override
+		public List<ExtensionPointStatistics> getStatistics() {
+			return ExtensionMetrics.getStatistics();
+		}
+		
+		/**
+		 * @see ExtensionMetricsMXBean#getHistogramBounds()
+		 */
+		@Override
+		public long[] getHistogramBounds() {
+			return HISTOGRAM_BOUNDS.clone();
+		}
+		
+		/**
+		 * @see ExtensionMetricsMXBean#reset()
+		 */
+		@Override
+		public void reset() {
+			ExtensionMetrics.reset();
+		}
+	
+	}
+	
+	private static final Logger log = LoggerFactory.getLogger(ExtensionMetrics.class);
+	
+	/**
+	 * Name of the system property enabling the metrics
+	 */
+	public static final String PROPERTY_ENABLED = "de.fhg.igd.eclipse.util.extension.metrics"; //$NON-NLS-1$
+	
+	/**
+	 * Name of the management bean
+	 */
+	public static final String MBEAN_NAME = "de.fhg.igd.eclipse.util:type=ExtensionMetrics"; //$NON-NLS-1$
+	
+	/**
+	 * Upper bounds (exclusive) of the latency histogram buckets in
+	 * microseconds. The last bucket holds all calls above the last bound.
+	 */
+	private static final long[] HISTOGRAM_BOUNDS = new long[] {
+		1, 10, 100, 1000, 10000, 100000, 1000000
+	};
+	
+	private static final ConcurrentMap<String, PointMetrics> metrics = new ConcurrentHashMap<String, PointMetrics>();
+	
+	private static volatile boolean enabled = false;
+	
+	private static boolean registered = false;
+	
+	static {
+		if (Boolean.getBoolean(PROPERTY_ENABLED)) {
+			setEnabled(true);
+		}
+	}
+	
+	/**
+	 * @return if metrics are collected
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Set if metrics should be collected. The management bean is registered
+	 * when metrics are enabled and it is not registered yet.
+	 * 
+	 * @param enabled if metrics should be collected
+	 */
+	public static void setEnabled(boolean enabled) {
+		if (enabled) {
+			registerMBean();
+		}
+		ExtensionMetrics.enabled = enabled;
+	}
+	
+	/**
+	 * Start timing a call
+	 * 
+	 * @return the start time to pass to
+	 *   {@link #record(String, Operation, long, boolean)}, <code>0</code>
+	 *   if metrics are disabled
+	 */
+	public static long start() {
+		return (enabled) ? (System.nanoTime()) : (0);
+	}
+	
+	/**
+	 * Record a call
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @param operation the operation
+	 * @param start the start time as returned by {@link #start()}
+	 * @param error if the call failed
+	 */
+	public static void record(String extensionPointID, Operation operation,
+			long start, boolean error) {
+		if (start == 0 || !enabled) {
+			return;
+		}
+		
+		long nanos = System.nanoTime() - start;
+		getMetrics(extensionPointID).operations.get(operation).record(nanos, error);
+	}
+	
+	/**
+	 * Record a lookup served from the cache
+	 * 
+	 * @param extensionPointID the extension point ID
+	 */
+	public static void cacheHit(String extensionPointID) {
+		if (enabled) {
+			getMetrics(extensionPointID).cacheHits.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Record a lookup that could not be served from the cache
+	 * 
+	 * @param extensionPointID the extension point ID
+	 */
+	public static void cacheMiss(String extensionPointID) {
+		if (enabled) {
+			getMetrics(extensionPointID).cacheMisses.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Create an extension object and record the call
+	 * 
+	 * @param <T> the extension object type
+	 * @param extension the extension the factory belongs to
+	 * @param factory the factory
+	 * @return the created extension object
+	 * @throws Exception if creating the extension object fails
+	 * @see ExtensionObjectFactory#createExtensionObject()
+	 */
+	public static <T> T createExtensionObject(ObjectExtension<?, ?> extension,
+			ExtensionObjectFactory<T> factory) throws Exception {
+		long start = start();
+		if (start == 0) {
+			return factory.createExtensionObject();
+		}
+		
+		boolean error = true;
+		try {
+			T result = factory.createExtensionObject();
+			error = false;
+			return result;
+		} finally {
+			record(getExtensionPointID(extension), Operation.CREATE_EXTENSION_OBJECT,
+					start, error);
+		}
+	}
+	
+	/**
+	 * Dispose an extension object and record the call
+	 * 
+	 * @param <T> the extension object type
+	 * @param extension the extension the factory belongs to
+	 * @param factory the factory
+	 * @param instance the extension object to dispose
+	 * @see ExtensionObjectFactory#dispose(Object)
+	 */
+	public static <T> void dispose(ObjectExtension<?, ?> extension,
+			ExtensionObjectFactory<T> factory, T instance) {
+		long start = start();
+		if (start == 0) {
+			factory.dispose(instance);
+			return;
+		}
+		
+		boolean error = true;
+		try {
+			factory.dispose(instance);
+			error = false;
+		} finally {
+			record(getExtensionPointID(extension), Operation.DISPOSE, start, error);
+		}
+	}
+	
+	/**
+	 * Get the ID to record metrics for an extension under. This is the
+	 * extension point ID for {@link AbstractExtension}s and the class name
+	 * otherwise.
+	 * 
+	 * @param extension the extension
+	 * @return the extension point ID or the extension class name
+	 */
+	public static String getExtensionPointID(ObjectExtension<?, ?> extension) {
+		if (extension instanceof AbstractExtension<?, ?>) {
+			return ((AbstractExtension<?, ?>) extension).getExtensionPointID();
+		}
+		return extension.getClass().getName();
+	}
+	
+	/**
+	 * Get the current statistics for all extension points
+	 * 
+	 * @return the extension point statistics
+	 */
+	public static List<ExtensionPointStatistics> getStatistics() {
+		List<ExtensionPointStatistics> result = new ArrayList<ExtensionPointStatistics>();
+		for (Map.Entry<String, PointMetrics> entry : metrics.entrySet()) {
+			PointMetrics point = entry.getValue();
+			List<OperationStatistics> operations = new ArrayList<OperationStatistics>();
+			for (Map.Entry<Operation, OperationMetrics> operation : point.operations.entrySet()) {
+				operations.add(operation.getValue().getStatistics(operation.getKey()));
+			}
+			result.add(new ExtensionPointStatistics(entry.getKey(),
+					point.cacheHits.get(), point.cacheMisses.get(), operations));
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the upper bounds of the latency histogram buckets
+	 * 
+	 * @return the bucket bounds in microseconds, the last bucket of a
+	 *   histogram has no upper bound
+	 */
+	public static long[] getHistogramBounds() {
+		return HISTOGRAM_BOUNDS.clone();
+	}
+	
+	/**
+	 * Reset all collected metrics
+	 */
+	public static void reset() {
+		metrics.clear();
+	}
+	
+	/**
+	 * Get the metrics for an extension point, creates them if needed
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @return the extension point metrics
+	 */
+	private static PointMetrics getMetrics(String extensionPointID) {
+		PointMetrics result = metrics.get(extensionPointID);
+		if (result == null) {
+			result = new PointMetrics();
+			PointMetrics existing = metrics.putIfAbsent(extensionPointID, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Unregister the management bean if it was registered. It is registered
+	 * again when metrics are enabled the next time. Called by the bundle
+	 * activator when the bundle is stopped.
+	 */
+	public static synchronized void unregisterMBean() {
+		if (!registered) {
+			return;
+		}
+		registered = false;
+		
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (Exception e) {
+			log.warn("Could not unregister extension metrics management bean", e); //$NON-NLS-1$
+		}
+	}
+	
+	/**
+	 * Register the management bean if not done yet
+	 */
+	private static synchronized void registerMBean() {
+		if (registered) {
+			return;
+		}
+		registered = true;
+		
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(),
+					new ObjectName(MBEAN_NAME));
+		} catch (Exception e) {
+			log.warn("Could not register extension metrics management bean", e); //$NON-NLS-1$
+		}
+	}
+
+}
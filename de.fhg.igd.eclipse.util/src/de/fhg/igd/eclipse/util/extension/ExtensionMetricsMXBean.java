@@ -0,0 +1,59 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.List;
+
+import de.fhg.igd.eclipse.util.extension.ExtensionMetrics.ExtensionPointStatistics;
+
+/**
+ * <p>Title: ExtensionMetricsMXBean</p>
+ * <p>Description: Management interface for {@link ExtensionMetrics}</p>
+ * @author Simon Templer
+ */
+public interface ExtensionMetricsMXBean {
+	
+	/**
+	 * @return if metrics are collected
+	 */
+	public boolean isEnabled();
+	
+	/**
+	 * @param enabled if metrics should be collected
+	 */
+	public void setEnabled(boolean enabled);
+	
+	/**
+	 * @return the statistics for all extension points
+	 */
+	public List<ExtensionPointStatistics> getStatistics();
+	
+	/**
+	 * @return the upper bounds of the latency histogram buckets in
+	 *   microseconds, the last bucket has no upper bound
+	 */
+	public long[] getHistogramBounds();
+	
+	/**
+	 * Reset all collected metrics
+	 */
+	public void reset();
+
+}
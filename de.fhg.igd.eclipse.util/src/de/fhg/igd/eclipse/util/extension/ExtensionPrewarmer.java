@@ -0,0 +1,395 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fhg.igd.eclipse.util.extension.simple.IdentifiableExtension;
+
+/**
+ * <p>Title: ExtensionPrewarmer</p>
+ * <p>Description: Prewarms extensions in the background, so their caches
+ * are populated before they are first needed. Extensions are prewarmed in
+ * the order of their priority by a system job running at low priority,
+ * once the extension registry is available. Prewarming starts when the
+ * first task is added or when the bundle is started.</p>
+ * <p>Extension points may also be listed in the system property
+ * <code>de.fhg.igd.eclipse.util.prewarm</code> as comma separated IDs,
+ * optionally followed by a colon and a priority, e.g.
+ * <code>org.example.tools:10,org.example.views</code>. For these only the
+ * configuration elements in the extension registry are loaded, the caches
+ * of extension instances are not populated. To prewarm those, register the
+ * instances with {@link #prewarm(AbstractExtension, int)} or
+ * {@link #prewarm(IdentifiableExtension, int)}. The property is read when
+ * prewarming starts.</p>
+ * @author Simon Templer
+ */
+public abstract class ExtensionPrewarmer {
+	
+	/**
+	 * A pending prewarm task
+	 */
+	private static class Task implements Comparable<Task> {
+		
+		private final String name;
+		
+		private final int priority;
+		
+		private final long sequence;
+		
+		private final Runnable action;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param name the task name, usually the extension point ID
+		 * @param priority the task priority
+		 * @param sequence the sequence number of the task
+		 * @param action the prewarm action
+		 */
+		public Task(String name, int priority, long sequence, Runnable action) {
+			super();
+			this.name = name;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.action = action;
+		}
+		
+		/**
+		 * @see Comparable#compareTo(Object)
+		 */
+		@Override
+		public int compareTo(Task other) {
+			// higher priority first, then in order of addition
+			if (priority != other.priority) {
+				return (priority > other.priority) ? (-1) : (1);
+			}
+			return (sequence < other.sequence) ? (-1) : ((sequence == other.sequence) ? (0) : (1));
+		}
+	
+	}
+	
+	/**
+	 * Job executing the pending tasks
+	 */
+	private static class PrewarmJob extends Job {
+		
+		/**
+		 * Constructor
+		 */
+		public PrewarmJob() {
+			super("Prewarming extensions"); //$NON-NLS-1$
+			
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+		
+		/**
+		 * @see Job#run(IProgressMonitor)
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			while (true) {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				
+				Task task = nextTask();
+				if (task == null) {
+					return Status.OK_STATUS;
+				}
+				
+				long start = System.nanoTime();
+				try {
+					task.action.run();
+				} catch (Exception e) {
+					log.warn("Error prewarming " + task.name, e); //$NON-NLS-1$
+				}
+				long millis = (System.nanoTime() - start) / 1000000;
+				
+				synchronized (ExtensionPrewarmer.class) {
+					timings.put(task.name, millis);
+				}
+				log.debug("Prewarmed " + task.name + " in " + millis + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+	
+	}
+	
+	private static final Logger log = LoggerFactory.getLogger(ExtensionPrewarmer.class);
+	
+	/**
+	 * Name of the system property listing extension points for which the
+	 * configuration elements are loaded from the extension registry.
+	 * Extension instances are not prewarmed through the property.
+	 */
+	public static final String PROPERTY_EXTENSION_POINTS = "de.fhg.igd.eclipse.util.prewarm"; //$NON-NLS-1$
+	
+	/**
+	 * Name of the system property defining the delay in milliseconds before
+	 * prewarming starts
+	 */
+	public static final String PROPERTY_DELAY = "de.fhg.igd.eclipse.util.prewarm.delay"; //$NON-NLS-1$
+	
+	/**
+	 * The default delay before prewarming starts in milliseconds
+	 */
+	private static final long DEFAULT_DELAY = 2000;
+	
+	private static final PriorityQueue<Task> tasks = new PriorityQueue<Task>();
+	
+	private static final Map<String, Long> timings = new LinkedHashMap<String, Long>();
+	
+	private static long nextSequence = 0;
+	
+	private static PrewarmJob job;
+	
+	private static boolean propertyRead = false;
+	
+	private static boolean disabled = false;
+	
+	/**
+	 * Prewarm the factory snapshot of an extension
+	 * 
+	 * @param extension the extension
+	 * @param priority the priority, higher priorities are prewarmed first
+	 */
+	public static void prewarm(final AbstractExtension<?, ?> extension, int priority) {
+		add(extension.getExtensionPointID(), priority, new Runnable() {
+			
+			@Override
+			public void run() {
+				extension.getSnapshot();
+			}
+		
+		});
+	}
+	
+	/**
+	 * Prewarm the elements of an identifiable extension
+	 * 
+	 * @param extension the extension
+	 * @param priority the priority, higher priorities are prewarmed first
+	 */
+	public static void prewarm(final IdentifiableExtension<?> extension, int priority) {
+		add(extension.getExtensionId(), priority, new Runnable() {
+			
+			@Override
+			public void run() {
+				extension.getElements();
+			}
+		
+		});
+	}
+	
+	/**
+	 * Prewarm the extension registry for an extension point, i.e. load the
+	 * configuration elements and their attributes
+	 * 
+	 * @param extensionPointID the extension point ID
+	 * @param priority the priority, higher priorities are prewarmed first
+	 */
+	public static void prewarm(final String extensionPointID, int priority) {
+		add(extensionPointID, priority, new Runnable() {
+			
+			@Override
+			public void run() {
+				for (IConfigurationElement conf : Platform.getExtensionRegistry()
+						.getConfigurationElementsFor(extensionPointID)) {
+					for (String attribute : conf.getAttributeNames()) {
+						conf.getAttribute(attribute);
+					}
+				}
+			}
+		
+		});
+	}
+	
+	/**
+	 * Get the durations of the completed prewarm tasks
+	 * 
+	 * @return the durations in milliseconds mapped by task name, in order
+	 *   of completion
+	 */
+	public static synchronized Map<String, Long> getTimings() {
+		return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(timings));
+	}
+	
+	/**
+	 * Cancel prewarming, pending tasks are discarded
+	 */
+	public static void cancel() {
+		Job cancelJob;
+		synchronized (ExtensionPrewarmer.class) {
+			tasks.clear();
+			cancelJob = job;
+		}
+		if (cancelJob != null) {
+			cancelJob.cancel();
+		}
+	}
+	
+	/**
+	 * Enable prewarming, pending tasks are executed in the background.
+	 * Called by the bundle activator when the extension registry is
+	 * available, otherwise prewarming is enabled when the first task is
+	 * added.
+	 */
+	public static void enable() {
+		synchronized (ExtensionPrewarmer.class) {
+			disabled = false;
+			if (job != null) {
+				return;
+			}
+			job = new PrewarmJob();
+		}
+		
+		readProperty();
+		schedule();
+	}
+	
+	/**
+	 * Disable prewarming, a running prewarm job is cancelled. Called by the
+	 * bundle activator when the bundle is stopped.
+	 */
+	public static void disable() {
+		Job cancelJob;
+		synchronized (ExtensionPrewarmer.class) {
+			cancelJob = job;
+			job = null;
+			disabled = true;
+		}
+		if (cancelJob != null) {
+			cancelJob.cancel();
+		}
+	}
+	
+	/**
+	 * Add a task and schedule the job if enabled
+	 * 
+	 * @param name the task name, usually the extension point ID
+	 * @param priority the task priority
+	 * @param action the prewarm action
+	 */
+	private static void add(String name, int priority, Runnable action) {
+		boolean start;
+		synchronized (ExtensionPrewarmer.class) {
+			tasks.add(new Task(name, priority, nextSequence++, action));
+			start = job == null && !disabled;
+		}
+		
+		if (start && isRegistryAvailable()) {
+			// the bundle may not have been started
+			enable();
+		}
+		else {
+			schedule();
+		}
+	}
+	
+	/**
+	 * Determine if the platform extension registry is available
+	 * 
+	 * @return if the extension registry is available
+	 */
+	private static boolean isRegistryAvailable() {
+		try {
+			return Platform.getExtensionRegistry() != null;
+		} catch (RuntimeException e) {
+			// platform not running
+			return false;
+		}
+	}
+	
+	/**
+	 * Get the next task to execute
+	 * 
+	 * @return the task with the highest priority or <code>null</code>
+	 */
+	private static synchronized Task nextTask() {
+		return tasks.poll();
+	}
+	
+	/**
+	 * Schedule the job if enabled and there are pending tasks
+	 */
+	private static void schedule() {
+		Job scheduleJob;
+		synchronized (ExtensionPrewarmer.class) {
+			if (job == null || tasks.isEmpty()) {
+				return;
+			}
+			scheduleJob = job;
+		}
+		// scheduling a job that is already waiting or running has no effect
+		// on it, a running job will pick up the added task
+		scheduleJob.schedule(Long.getLong(PROPERTY_DELAY, DEFAULT_DELAY));
+	}
+	
+	/**
+	 * Add the extension points listed in the system property
+	 */
+	private static void readProperty() {
+		synchronized (ExtensionPrewarmer.class) {
+			if (propertyRead) {
+				return;
+			}
+			propertyRead = true;
+		}
+		
+		String value = System.getProperty(PROPERTY_EXTENSION_POINTS);
+		if (value == null) {
+			return;
+		}
+		
+		for (String part : value.split(",")) { //$NON-NLS-1$
+			part = part.trim();
+			if (part.isEmpty()) {
+				continue;
+			}
+			
+			int priority = 0;
+			int index = part.lastIndexOf(':');
+			if (index > 0) {
+				try {
+					priority = Integer.parseInt(part.substring(index + 1).trim());
+					part = part.substring(0, index).trim();
+				} catch (NumberFormatException e) {
+					log.warn("Invalid prewarm priority: " + part); //$NON-NLS-1$
+				}
+			}
+			
+			prewarm(part, priority);
+		}
+	}
+
+}
@@ -19,9 +19,15 @@
 
 package de.fhg.igd.eclipse.util.extension;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
 
-import de.fhg.igd.osgi.util.OsgiUtils;
+import com.google.common.base.Objects;
+import com.google.common.collect.MapMaker;
 
 /**
  * Utility methods for extension points
@@ -29,6 +35,112 @@ import de.fhg.igd.osgi.util.OsgiUtils;
  */
 public abstract class ExtensionUtil {
 	
+	/**
+	 * Key for the class cache
+	 */
+	private static final class ClassKey {
+		
+		private final String bundleName;
+		
+		private final long revision;
+		
+		private final long generation;
+		
+		private final String className;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param bundleName the bundle symbolic name
+		 * @param revision the bundle revision
+		 * @param generation the bundle generation
+		 * @param className the class name
+		 */
+		public ClassKey(String bundleName, long revision, long generation,
+				String className) {
+			super();
+			this.bundleName = bundleName;
+			this.revision = revision;
+			this.generation = generation;
+			this.className = className;
+		}
+		
+		/**
+		 * @see Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(bundleName, revision, generation, className);
+		}
+		
+		/**
+		 * @see Object#equals(Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ClassKey)) {
+				return false;
+			}
+			ClassKey other = (ClassKey) obj;
+			return revision == other.revision
+					&& generation == other.generation
+					&& className.equals(other.className)
+					&& bundleName.equals(other.bundleName);
+		}
+	
+	}
+	
+	/**
+	 * A bundle looked up in a bundle generation
+	 */
+	private static final class BundleEntry {
+		
+		private final Bundle bundle;
+		
+		private final long generation;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param bundle the bundle, <code>null</code> if it is not available
+		 * @param generation the bundle generation
+		 */
+		public BundleEntry(Bundle bundle, long generation) {
+			super();
+			this.bundle = bundle;
+			this.generation = generation;
+		}
+	
+	}
+	
+	/**
+	 * The maximum number of remembered classes that could not be loaded
+	 */
+	private static final int MAX_MISSING_CLASSES = 1024;
+	
+	/**
+	 * Loaded classes. The classes are only weakly referenced, so they don't
+	 * prevent uninstalled bundles from being unloaded.
+	 */
+	private static final ConcurrentMap<ClassKey, Class<?>> classes = new MapMaker()
+			.weakValues().makeMap();
+	
+	/**
+	 * Bounded set of classes that could not be loaded, entries of earlier
+	 * bundle generations are eventually evicted
+	 */
+	private static final ConcurrentMap<ClassKey, Boolean> missing = new MapMaker()
+			.maximumSize(MAX_MISSING_CLASSES).makeMap();
+	
+	/**
+	 * Bundles by symbolic name, looked up again when the bundle generation
+	 * changes
+	 */
+	private static final ConcurrentMap<String, BundleEntry> bundles = new ConcurrentHashMap<String, BundleEntry>();
+	
 	/**
 	 * Load a class contained in an {@link IConfigurationElement} as attribute
 	 * @param conf the configuration element
@@ -36,8 +148,113 @@ public abstract class ExtensionUtil {
 	 * @return the loaded class or <code>null</code> if it could not be found
 	 */
 	public static Class<?> loadClass(IConfigurationElement conf, String classAttributeName) { 
-		String bundleName = conf.getContributor().getName();
-		return OsgiUtils.loadClass(conf.getAttribute(classAttributeName), bundleName);
+		return loadClass(conf.getContributor().getName(),
+				conf.getAttribute(classAttributeName));
+	}
+	
+	/**
+	 * Load a class from a bundle, using the class cache
+	 * @param bundleName the bundle symbolic name
+	 * @param className the class name
+	 * @return the loaded class or <code>null</code> if it could not be found
+	 */
+	static Class<?> loadClass(String bundleName, String className) {
+		if (className == null) {
+			return null;
+		}
+		
+		long generation = BundleGeneration.get(bundleName);
+		Bundle bundle = getBundle(bundleName, generation);
+		return loadClass(bundle, bundleName, getRevision(bundle), generation, className);
+	}
+	
+	/**
+	 * Load the classes contained in {@link IConfigurationElement}s as
+	 * attribute.
+	 * @param elements the configuration elements
+	 * @param classAttributeName the name of the attribute containing the class name
+	 * @return the loaded classes in the order of the configuration
+	 *   elements, <code>null</code> for classes that could not be found
+	 */
+	public static Class<?>[] loadClasses(IConfigurationElement[] elements,
+			String classAttributeName) {
+		Class<?>[] result = new Class<?>[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			result[i] = loadClass(elements[i], classAttributeName);
+		}
+		return result;
+	}
+	
+	/**
+	 * Load a class from a bundle, using the class cache
+	 * @param bundle the bundle, may be <code>null</code>
+	 * @param bundleName the bundle symbolic name
+	 * @param revision the bundle revision
+	 * @param generation the bundle generation
+	 * @param className the class name
+	 * @return the loaded class or <code>null</code> if it could not be found
+	 */
+	private static Class<?> loadClass(Bundle bundle, String bundleName,
+			long revision, long generation, String className) {
+		// the generation changes if the bundle has been refreshed
+		ClassKey key = new ClassKey(bundleName, revision, generation, className);
+		Class<?> result = classes.get(key);
+		if (result != null || missing.containsKey(key)) {
+			return result;
+		}
+		
+		if (bundle != null) {
+			try {
+				result = bundle.loadClass(className);
+			} catch (ClassNotFoundException e) {
+				// not found
+			} catch (IllegalStateException e) {
+				// bundle has been uninstalled
+			}
+		}
+		
+		if (result != null) {
+			classes.put(key, result);
+		}
+		else {
+			missing.put(key, Boolean.TRUE);
+		}
+		return result;
+	}
+	
+	/**
+	 * Get a bundle, it is only looked up again if the bundle generation has
+	 * changed
+	 * @param bundleName the bundle symbolic name
+	 * @param generation the current bundle generation
+	 * @return the bundle or <code>null</code> if it is not available
+	 */
+	private static Bundle getBundle(String bundleName, long generation) {
+		BundleEntry entry = bundles.get(bundleName);
+		if (entry != null && entry.generation == generation
+				&& (entry.bundle == null || entry.bundle.getState() != Bundle.UNINSTALLED)) {
+			return entry.bundle;
+		}
+		
+		Bundle bundle;
+		try {
+			bundle = Platform.getBundle(bundleName);
+		} catch (RuntimeException e) {
+			// platform not running
+			bundle = null;
+		}
+		bundles.put(bundleName, new BundleEntry(bundle, generation));
+		return bundle;
+	}
+	
+	/**
+	 * Get the revision of a bundle, it changes when the bundle is updated
+	 * @param bundle the bundle, may be <code>null</code>
+	 * @return the bundle revision or <code>-1</code> if the bundle is not
+	 *   available
+	 */
+	private static long getRevision(Bundle bundle) {
+		return (bundle == null) ? (-1) : (bundle.getLastModified());
 	}
 
 }
@@ -0,0 +1,95 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+
+/**
+ * <p>Title: FactoryContribution</p>
+ * <p>Description: Factories and factory collection created for a
+ * configuration element</p>
+ * @param <T> the extension object type
+ * @param <F> the factory type
+ * @author Simon Templer
+ */
+class FactoryContribution<T, F extends ExtensionObjectFactory<T>> {
+	
+	private final IConfigurationElement element;
+	
+	private final List<F> factories;
+	
+	private final ExtensionObjectFactoryCollection<T, F> collection;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param element the configuration element
+	 * @param factory the factory, may be <code>null</code>
+	 * @param collection the factory collection, may be <code>null</code>
+	 */
+	public FactoryContribution(IConfigurationElement element, F factory,
+			ExtensionObjectFactoryCollection<T, F> collection) {
+		super();
+		this.element = element;
+		this.factories = (factory == null) ? (Collections.<F> emptyList())
+				: (Collections.singletonList(factory));
+		this.collection = collection;
+	}
+	
+	/**
+	 * Constructor for factories that were not created through
+	 * {@link AbstractExtension#createFactory(IConfigurationElement)}
+	 * 
+	 * @param element the configuration element
+	 * @param factories the factories
+	 */
+	public FactoryContribution(IConfigurationElement element, List<F> factories) {
+		super();
+		this.element = element;
+		this.factories = Collections.unmodifiableList(factories);
+		this.collection = null;
+	}
+	
+	/**
+	 * @return the configuration element
+	 */
+	public IConfigurationElement getElement() {
+		return element;
+	}
+	
+	/**
+	 * @return the factories, usually the single factory created for the
+	 *   configuration element
+	 */
+	public List<F> getFactories() {
+		return factories;
+	}
+	
+	/**
+	 * @return the factory collection, may be <code>null</code>
+	 */
+	public ExtensionObjectFactoryCollection<T, F> getCollection() {
+		return collection;
+	}
+
+}
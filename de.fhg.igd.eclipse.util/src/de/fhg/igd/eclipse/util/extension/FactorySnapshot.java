@@ -0,0 +1,157 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Title: FactorySnapshot</p>
+ * <p>Description: Immutable state of the factories of an extension point.
+ * A snapshot is never changed after it has been created, changes to the
+ * extension registry result in a new snapshot with a higher version.
+ * Snapshots may therefore be shared between threads without locking.</p>
+ * <p>Factories provided by factory collections are not part of the
+ * snapshot as collections may change independently of the registry.</p>
+ * @param <T> the extension object type
+ * @param <F> the factory type
+ * @author Simon Templer
+ */
+public final class FactorySnapshot<T, F extends ExtensionObjectFactory<T>> {
+	
+	private final long version;
+	
+	private final Map<String, ContributorPartition<T, F>> partitions;
+	
+	private final List<F> factories;
+	
+	private final Map<String, F> factoryIds;
+	
+	private final List<ExtensionObjectFactoryCollection<T, F>> collections;
+	
+	/**
+	 * Create a snapshot
+	 * 
+	 * @param version the snapshot version
+	 * @param partitions the contributor partitions mapped by contributor
+	 *   name, the map is copied
+	 */
+	FactorySnapshot(long version,
+			Map<String, ContributorPartition<T, F>> partitions) {
+		this.version = version;
+		this.partitions = Collections.unmodifiableMap(
+				new LinkedHashMap<String, ContributorPartition<T, F>>(partitions));
+		
+		List<F> factories = new ArrayList<F>();
+		Map<String, F> factoryIds = new HashMap<String, F>();
+		List<ExtensionObjectFactoryCollection<T, F>> collections = new ArrayList<ExtensionObjectFactoryCollection<T, F>>();
+		for (ContributorPartition<T, F> partition : partitions.values()) {
+			for (F factory : partition.getFactories()) {
+				factories.add(factory);
+				factoryIds.put(factory.getIdentifier(), factory);
+			}
+			collections.addAll(partition.getCollections());
+		}
+		// the partitions are already sorted, so this is merely a merge
+		DefinitionSortKey.sort(factories);
+		
+		this.factories = Collections.unmodifiableList(factories);
+		this.factoryIds = factoryIds;
+		this.collections = Collections.unmodifiableList(collections);
+	}
+	
+	/**
+	 * Get the snapshot version. Each change to the extension registry
+	 * that affects the extension point results in a new version.
+	 * 
+	 * @return the snapshot version
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Get the factories created for the configuration elements, sorted
+	 * 
+	 * @return the unmodifiable sorted list of factories
+	 */
+	public List<F> getFactories() {
+		return factories;
+	}
+	
+	/**
+	 * Get the factories created for the configuration elements of a
+	 * contributor, sorted
+	 * 
+	 * @param contributor the contributor name
+	 * @return the unmodifiable sorted list of factories, empty if there are
+	 *   no contributions of the given contributor
+	 */
+	public List<F> getFactories(String contributor) {
+		ContributorPartition<T, F> partition = partitions.get(contributor);
+		if (partition == null) {
+			return Collections.emptyList();
+		}
+		return partition.getFactories();
+	}
+	
+	/**
+	 * Get the names of the contributors
+	 * 
+	 * @return the unmodifiable set of contributor names
+	 */
+	public Set<String> getContributors() {
+		return partitions.keySet();
+	}
+	
+	/**
+	 * Get the factory with the given ID created for a configuration element
+	 * 
+	 * @param id the factory ID
+	 * @return the factory or <code>null</code>
+	 */
+	public F getFactory(String id) {
+		return factoryIds.get(id);
+	}
+	
+	/**
+	 * Get the factory collections
+	 * 
+	 * @return the unmodifiable list of factory collections
+	 */
+	public List<ExtensionObjectFactoryCollection<T, F>> getCollections() {
+		return collections;
+	}
+	
+	/**
+	 * Get the contributor partitions the snapshot was created from
+	 * 
+	 * @return the unmodifiable map of partitions by contributor name
+	 */
+	Map<String, ContributorPartition<T, F>> getPartitions() {
+		return partitions;
+	}
+	
+}
@@ -0,0 +1,59 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.List;
+
+/**
+ * <p>Title: FactoryView</p>
+ * <p>Description: Live, sorted view on the factories of an extension that
+ * are accepted by a filter, see
+ * {@link CachingObjectExtension#getView(FactoryFilter)}.</p>
+ * <p>Factories provided by factory collections are added on each access,
+ * as collections may change independently.</p>
+ * @param <T> the extension object type
+ * @param <F> the factory type
+ * @author Simon Templer
+ */
+public interface FactoryView<T, F extends ExtensionObjectFactory<T>> {
+	
+	/**
+	 * Get the filter of the view
+	 * 
+	 * @return the filter, may be <code>null</code>
+	 */
+	public FactoryFilter<T, F> getFilter();
+	
+	/**
+	 * Get the version of the factories the view is currently based on
+	 * 
+	 * @return the factories version
+	 * @see CachingObjectExtension#getVersion()
+	 */
+	public long getVersion();
+	
+	/**
+	 * Get the sorted factories accepted by the filter
+	 * 
+	 * @return the unmodifiable list of factories
+	 */
+	public List<F> getFactories();
+
+}
@@ -0,0 +1,42 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+/**
+ * <p>Title: FactoryVisitor</p>
+ * <p>Description: Visitor for iterating over the factories of an
+ * {@link ObjectExtension} without creating a list</p>
+ * @author Simon Templer
+ * @param <T> the extension object type
+ * @param <F> the extension object factory type
+ */
+public interface FactoryVisitor<T, F extends ExtensionObjectFactory<T>> {
+	
+	/**
+	 * Visit a factory
+	 * 
+	 * @param factory the extension object factory
+	 * 
+	 * @return if the iteration should continue, <code>false</code> to stop
+	 *   the iteration
+	 */
+	public boolean visit(F factory);
+
+}
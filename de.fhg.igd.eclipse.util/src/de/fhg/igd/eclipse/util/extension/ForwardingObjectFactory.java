@@ -0,0 +1,136 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.net.URL;
+
+/**
+ * <p>Title: ForwardingObjectFactory</p>
+ * <p>Description: Extension object factory that forwards all calls to
+ * another factory. Base class for factory wrappers.</p>
+ * @param <T> the extension object type
+ * @author Simon Templer
+ */
+public abstract class ForwardingObjectFactory<T> extends AbstractObjectDefinition
+	implements ExtensionObjectFactory<T> {
+	
+	private final ExtensionObjectFactory<T> delegate;
+	
+	/**
+	 * Create a factory forwarding to the given factory
+	 * 
+	 * @param delegate the factory to forward calls to
+	 */
+	protected ForwardingObjectFactory(ExtensionObjectFactory<T> delegate) {
+		super();
+		if (delegate == null) {
+			throw new IllegalArgumentException("Delegate factory must not be null"); //$NON-NLS-1$
+		}
+		this.delegate = delegate;
+	}
+	
+	/**
+	 * Get the factory calls are forwarded to
+	 * 
+	 * @return the wrapped factory
+	 */
+	public ExtensionObjectFactory<T> getDelegate() {
+		return delegate;
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getIdentifier()
+	 */
+	@Override
+	public String getIdentifier() {
+		return delegate.getIdentifier();
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getDisplayName()
+	 */
+	@Override
+	public String getDisplayName() {
+		return delegate.getDisplayName();
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getIconURL()
+	 */
+	@Override
+	public URL getIconURL() {
+		return delegate.getIconURL();
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getTypeName()
+	 */
+	@Override
+	public String getTypeName() {
+		return delegate.getTypeName();
+	}
+	
+	/**
+	 * @see Prioritizable#getPriority()
+	 */
+	@Override
+	public int getPriority() {
+		if (delegate instanceof Prioritizable) {
+			return ((Prioritizable) delegate).getPriority();
+		}
+		return super.getPriority();
+	}
+	
+	/**
+	 * @see ExtensionObjectFactory#createExtensionObject()
+	 */
+	@Override
+	public T createExtensionObject() throws Exception {
+		return delegate.createExtensionObject();
+	}
+	
+	/**
+	 * @see ExtensionObjectFactory#allowConfigure()
+	 */
+	@Override
+	public boolean allowConfigure() {
+		return delegate.allowConfigure();
+	}
+	
+	/**
+	 * @see ExtensionObjectFactory#configure()
+	 */
+	@Override
+	public boolean configure() {
+		boolean recreate = delegate.configure();
+		// the delegate may have changed its name or priority
+		resetSortKey();
+		return recreate;
+	}
+	
+	/**
+	 * @see ExtensionObjectFactory#dispose(Object)
+	 */
+	@Override
+	public void dispose(T instance) {
+		delegate.dispose(instance);
+	}
+
+}
@@ -0,0 +1,174 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+
+/**
+ * <p>Title: IndexedDefinition</p>
+ * <p>Description: Extension object definition as stored in an
+ * {@link ExtensionIndex}. Provides the information needed for listing
+ * an extension object without accessing the extension registry. Icons are
+ * stored as path relative to the contributing bundle, as resolved bundle
+ * URLs are only valid for the running framework.</p>
+ * @author Simon Templer
+ */
+public class IndexedDefinition extends AbstractObjectDefinition {
+	
+	private final String identifier;
+	
+	private final String displayName;
+	
+	private final int priority;
+	
+	private final String typeName;
+	
+	private final String iconLocation;
+	
+	private final String contributor;
+	
+	/**
+	 * Create an indexed definition
+	 * 
+	 * @param identifier the identifier
+	 * @param displayName the display name
+	 * @param priority the priority
+	 * @param typeName the type name, may be <code>null</code>
+	 * @param iconLocation the icon path relative to the contributor or an
+	 *   absolute icon URL, may be <code>null</code>
+	 * @param contributor the name of the contributor
+	 */
+	public IndexedDefinition(String identifier, String displayName,
+			int priority, String typeName, String iconLocation,
+			String contributor) {
+		super();
+		this.identifier = identifier;
+		this.displayName = (displayName == null) ? (identifier) : (displayName);
+		this.priority = priority;
+		this.typeName = typeName;
+		this.iconLocation = iconLocation;
+		this.contributor = contributor;
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getIdentifier()
+	 */
+	@Override
+	public String getIdentifier() {
+		return identifier;
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getDisplayName()
+	 */
+	@Override
+	public String getDisplayName() {
+		return displayName;
+	}
+	
+	/**
+	 * @see AbstractObjectDefinition#getPriority()
+	 */
+	@Override
+	public int getPriority() {
+		return priority;
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getTypeName()
+	 */
+	@Override
+	public String getTypeName() {
+		return typeName;
+	}
+	
+	/**
+	 * @see ExtensionObjectDefinition#getIconURL()
+	 */
+	@Override
+	public URL getIconURL() {
+		if (iconLocation == null) {
+			return null;
+		}
+		
+		if (isBundlePath(iconLocation)) {
+			Bundle bundle = Platform.getBundle(contributor);
+			return (bundle == null) ? (null) : (bundle.getResource(iconLocation));
+		}
+		
+		try {
+			return new URL(iconLocation);
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Get the location to store in the index for an icon URL
+	 * 
+	 * @param url the icon URL, may be <code>null</code>
+	 * @return the path of the icon in its bundle for bundle URLs, otherwise
+	 *   the URL as string, <code>null</code> if the URL is <code>null</code>
+	 */
+	public static String toIconLocation(URL url) {
+		if (url == null) {
+			return null;
+		}
+		
+		String protocol = url.getProtocol();
+		if ("bundleentry".equals(protocol) || "bundleresource".equals(protocol)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return url.getPath();
+		}
+		return url.toString();
+	}
+	
+	/**
+	 * Determine if an icon location is a path relative to the contributor
+	 * 
+	 * @param location the icon location
+	 * @return if the location is a path and no URL
+	 */
+	private static boolean isBundlePath(String location) {
+		return location.indexOf(':') < 0;
+	}
+	
+	/**
+	 * Get the icon path relative to the contributor or the absolute icon URL
+	 * 
+	 * @return the icon location or <code>null</code>
+	 */
+	public String getIconLocation() {
+		return iconLocation;
+	}
+	
+	/**
+	 * Get the name of the contributor that defined the extension object
+	 * 
+	 * @return the contributor name
+	 */
+	public String getContributor() {
+		return contributor;
+	}
+
+}
@@ -0,0 +1,138 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+/**
+ * <p>Title: LazyFactoryDescriptor</p>
+ * <p>Description: Describes how to provide the basic information of a
+ * factory directly from configuration element attributes. Used by
+ * {@link AbstractExtension} to create lazy factory proxies that only
+ * create the real factory when it is actually needed.</p>
+ * @param <F> the factory type, must be an interface
+ * @author Simon Templer
+ */
+public final class LazyFactoryDescriptor<F extends ExtensionObjectFactory<?>> {
+	
+	private final Class<F> factoryType;
+	
+	private final String elementName;
+	
+	private final String idAttributeName;
+	
+	private final String nameAttributeName;
+	
+	private final String priorityAttributeName;
+	
+	private final String iconAttributeName;
+	
+	private final String typeAttributeName;
+	
+	/**
+	 * Create a lazy factory descriptor
+	 * 
+	 * @param factoryType the factory interface
+	 * @param elementName the name of the configuration elements that
+	 *   define factories, <code>null</code> if all elements define factories
+	 * @param idAttributeName the name of the attribute holding the
+	 *   factory identifier
+	 * @param nameAttributeName the name of the attribute holding the
+	 *   display name, <code>null</code> if the identifier should be used
+	 * @param priorityAttributeName the name of the attribute holding the
+	 *   priority, <code>null</code> for the default priority
+	 * @param iconAttributeName the name of the attribute holding the path
+	 *   of the icon, <code>null</code> if there is no icon
+	 * @param typeAttributeName the name of the attribute holding the type
+	 *   name, <code>null</code> if the real factory should be asked for the
+	 *   type name
+	 */
+	public LazyFactoryDescriptor(Class<F> factoryType, String elementName,
+			String idAttributeName, String nameAttributeName,
+			String priorityAttributeName, String iconAttributeName,
+			String typeAttributeName) {
+		super();
+		
+		if (!factoryType.isInterface()) {
+			throw new IllegalArgumentException("Lazy factories are only supported for interface types"); //$NON-NLS-1$
+		}
+		
+		this.factoryType = factoryType;
+		this.elementName = elementName;
+		this.idAttributeName = idAttributeName;
+		this.nameAttributeName = nameAttributeName;
+		this.priorityAttributeName = priorityAttributeName;
+		this.iconAttributeName = iconAttributeName;
+		this.typeAttributeName = typeAttributeName;
+	}
+	
+	/**
+	 * @return the factory interface
+	 */
+	public Class<F> getFactoryType() {
+		return factoryType;
+	}
+	
+	/**
+	 * @return the name of the configuration elements that define factories,
+	 *   <code>null</code> if all elements define factories
+	 */
+	public String getElementName() {
+		return elementName;
+	}
+	
+	/**
+	 * @return the name of the attribute holding the factory identifier
+	 */
+	public String getIdAttributeName() {
+		return idAttributeName;
+	}
+	
+	/**
+	 * @return the name of the attribute holding the display name, may be
+	 *   <code>null</code>
+	 */
+	public String getNameAttributeName() {
+		return nameAttributeName;
+	}
+	
+	/**
+	 * @return the name of the attribute holding the priority, may be
+	 *   <code>null</code>
+	 */
+	public String getPriorityAttributeName() {
+		return priorityAttributeName;
+	}
+	
+	/**
+	 * @return the name of the attribute holding the path of the icon, may
+	 *   be <code>null</code>
+	 */
+	public String getIconAttributeName() {
+		return iconAttributeName;
+	}
+	
+	/**
+	 * @return the name of the attribute holding the type name, may be
+	 *   <code>null</code>
+	 */
+	public String getTypeAttributeName() {
+		return typeAttributeName;
+	}
+
+}
@@ -0,0 +1,291 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+
+/**
+ * <p>Title: LazyFactoryHandler</p>
+ * <p>Description: Invocation handler for lazy factory proxies. Identifier,
+ * display name, priority, icon and type name are read from the
+ * configuration element, the real factory is only created when any other
+ * method is called.</p>
+ * @param <T> the extension object type
+ * @param <F> the factory type
+ * @author Simon Templer
+ */
+class LazyFactoryHandler<T, F extends ExtensionObjectFactory<T>> implements InvocationHandler {
+	
+	private final AbstractExtension<T, F> extension;
+	
+	private final LazyFactoryDescriptor<F> descriptor;
+	
+	private final IConfigurationElement conf;
+	
+	private final String id;
+	
+	private final String displayName;
+	
+	private final int priority;
+	
+	private volatile F factory;
+	
+	private volatile URL iconURL;
+	
+	private volatile boolean iconResolved = false;
+	
+	private final DefinitionSortKey sortKey;
+	
+	/**
+	 * Create a lazy factory handler
+	 * 
+	 * @param extension the extension creating the real factory
+	 * @param descriptor the lazy factory descriptor
+	 * @param conf the configuration element
+	 */
+	private LazyFactoryHandler(AbstractExtension<T, F> extension,
+			LazyFactoryDescriptor<F> descriptor, IConfigurationElement conf) {
+		super();
+		this.extension = extension;
+		this.descriptor = descriptor;
+		this.conf = conf;
+		
+		id = conf.getAttribute(descriptor.getIdAttributeName());
+		
+		String name = null;
+		if (descriptor.getNameAttributeName() != null) {
+			name = conf.getAttribute(descriptor.getNameAttributeName());
+		}
+		displayName = (name == null) ? (id) : (name);
+		
+		int prio = 0;
+		if (descriptor.getPriorityAttributeName() != null) {
+			String value = conf.getAttribute(descriptor.getPriorityAttributeName());
+			if (value != null && !value.isEmpty()) {
+				try {
+					prio = Integer.parseInt(value.trim());
+				} catch (NumberFormatException e) {
+					// use default priority
+				}
+			}
+		}
+		priority = prio;
+		
+		sortKey = DefinitionSortKey.create(priority, displayName, id);
+	}
+	
+	/**
+	 * Create a lazy factory proxy for a configuration element
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param extension the extension creating the real factory
+	 * @param descriptor the lazy factory descriptor
+	 * @param conf the configuration element
+	 * @return the factory proxy or <code>null</code> if the configuration
+	 *   element does not define a factory
+	 */
+	public static <T, F extends ExtensionObjectFactory<T>> F createProxy(
+			AbstractExtension<T, F> extension, LazyFactoryDescriptor<F> descriptor,
+			IConfigurationElement conf) {
+		if (descriptor.getElementName() != null
+				&& !descriptor.getElementName().equals(conf.getName())) {
+			return null;
+		}
+		if (conf.getAttribute(descriptor.getIdAttributeName()) == null) {
+			return null;
+		}
+		
+		Class<F> factoryType = descriptor.getFactoryType();
+		Class<?>[] interfaces;
+		if (Prioritizable.class.isAssignableFrom(factoryType)) {
+			interfaces = new Class<?>[] { factoryType };
+		}
+		else {
+			interfaces = new Class<?>[] { factoryType, Prioritizable.class };
+		}
+		
+		return factoryType.cast(Proxy.newProxyInstance(factoryType.getClassLoader(),
+				interfaces, new LazyFactoryHandler<T, F>(extension, descriptor, conf)));
+	}
+	
+	/**
+	 * Get the handler of a lazy factory proxy
+	 * 
+	 * @param factory the factory
+	 * @return the handler or <code>null</code> if the factory is no lazy
+	 *   factory proxy
+	 */
+	static LazyFactoryHandler<?, ?> getHandler(Object factory) {
+		if (factory != null && Proxy.isProxyClass(factory.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(factory);
+			if (handler instanceof LazyFactoryHandler<?, ?>) {
+				return (LazyFactoryHandler<?, ?>) handler;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Create the definition for the persistent index from the configuration
+	 * element, without creating the real factory
+	 * 
+	 * @return the indexed definition
+	 */
+	IndexedDefinition toIndexedDefinition() {
+		String typeName = (descriptor.getTypeAttributeName() == null) ? (null)
+				: (conf.getAttribute(descriptor.getTypeAttributeName()));
+		String icon = (descriptor.getIconAttributeName() == null) ? (null)
+				: (conf.getAttribute(descriptor.getIconAttributeName()));
+		if (icon != null && icon.isEmpty()) {
+			icon = null;
+		}
+		return new IndexedDefinition(id, displayName, priority, typeName, icon,
+				conf.getContributor().getName());
+	}
+	
+	/**
+	 * Get the real factory, creates it if needed
+	 * 
+	 * @return the factory
+	 * @throws Exception if creating the factory fails
+	 */
+	private F getFactory() throws Exception {
+		F result = factory;
+		if (result == null) {
+			synchronized (this) {
+				result = factory;
+				if (result == null) {
+					result = extension.newFactory(conf);
+					if (result == null) {
+						throw new IllegalStateException("No factory could be created for lazy factory " + id); //$NON-NLS-1$
+					}
+					factory = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @see InvocationHandler#invoke(Object, Method, Object[])
+	 */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args)
+			throws Throwable {
+		String name = method.getName();
+		int argCount = (args == null) ? (0) : (args.length);
+		
+		if (argCount == 0) {
+			if (name.equals("getIdentifier")) { //$NON-NLS-1$
+				return id;
+			}
+			if (name.equals("getDisplayName")) { //$NON-NLS-1$
+				return displayName;
+			}
+			if (name.equals("getPriority")) { //$NON-NLS-1$
+				return priority;
+			}
+			if (name.equals("getIconURL") && descriptor.getIconAttributeName() != null) { //$NON-NLS-1$
+				return getIconURL();
+			}
+			if (name.equals("getTypeName") && descriptor.getTypeAttributeName() != null) { //$NON-NLS-1$
+				return conf.getAttribute(descriptor.getTypeAttributeName());
+			}
+			if (name.equals("hashCode")) { //$NON-NLS-1$
+				return id.hashCode();
+			}
+			if (name.equals("toString")) { //$NON-NLS-1$
+				return displayName;
+			}
+		}
+		else if (argCount == 1) {
+			if (name.equals("equals")) { //$NON-NLS-1$
+				Object other = args[0];
+				return other instanceof ExtensionObjectDefinition
+						&& id.equals(((ExtensionObjectDefinition) other).getIdentifier());
+			}
+			if (name.equals("compareTo") && args[0] instanceof ExtensionObjectDefinition) { //$NON-NLS-1$
+				return compareTo(proxy, (ExtensionObjectDefinition) args[0]);
+			}
+		}
+		
+		try {
+			return method.invoke(getFactory(), args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Compare the proxy to another definition, in the same way as
+	 * {@link AbstractObjectDefinition#compareTo(ExtensionObjectDefinition)}
+	 * 
+	 * @param proxy the proxy
+	 * @param other the other definition
+	 * @return the comparison result
+	 */
+	private int compareTo(Object proxy, ExtensionObjectDefinition other) {
+		if (other instanceof AbstractObjectDefinition) {
+			return sortKey.compareTo(((AbstractObjectDefinition) other).getSortKey());
+		}
+		return DefinitionSortKey.compare((ExtensionObjectDefinition) proxy, other);
+	}
+	
+	/**
+	 * Get the sort key based on the information read from the
+	 * configuration element
+	 * 
+	 * @return the sort key
+	 */
+	DefinitionSortKey getSortKey() {
+		return sortKey;
+	}
+	
+	/**
+	 * Get the icon URL defined by the configuration element
+	 * 
+	 * @return the icon URL or <code>null</code>
+	 */
+	private URL getIconURL() {
+		if (!iconResolved) {
+			URL result = null;
+			String icon = conf.getAttribute(descriptor.getIconAttributeName());
+			if (icon != null && !icon.isEmpty()) {
+				Bundle bundle = Platform.getBundle(conf.getContributor().getName());
+				if (bundle != null) {
+					result = bundle.getResource(icon);
+				}
+			}
+			iconURL = result;
+			iconResolved = true;
+		}
+		return iconURL;
+	}
+
+}
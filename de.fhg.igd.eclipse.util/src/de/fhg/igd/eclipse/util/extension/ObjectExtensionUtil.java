@@ -0,0 +1,286 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * <p>Title: ObjectExtensionUtil</p>
+ * <p>Description: Provides the queries of a {@link CachingObjectExtension}
+ * for any {@link ObjectExtension}. If the extension is a
+ * {@link CachingObjectExtension} the calls are delegated, otherwise the
+ * result is determined using {@link ObjectExtension#getFactories(FactoryFilter)}
+ * or {@link ObjectExtension#getFactory(String)}.</p>
+ * @author Simon Templer
+ */
+public abstract class ObjectExtensionUtil {
+	
+	/**
+	 * Version reported for extensions that don't provide versions
+	 */
+	public static final long UNVERSIONED = -1;
+	
+	/**
+	 * View that determines the factories on each access
+	 */
+	private static class UncachedView<T, F extends ExtensionObjectFactory<T>> implements FactoryView<T, F> {
+		
+		private final ObjectExtension<T, F> extension;
+		
+		private final FactoryFilter<T, F> filter;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param extension the extension
+		 * @param filter the filter, may be <code>null</code>
+		 */
+		public UncachedView(ObjectExtension<T, F> extension, FactoryFilter<T, F> filter) {
+			super();
+			this.extension = extension;
+			this.filter = filter;
+		}
+		
+		/**
+		 * @see FactoryView#getFilter()
+		 */
+		@Override
+		public FactoryFilter<T, F> getFilter() {
+			return filter;
+		}
+		
+		/**
+		 * @see FactoryView#getVersion()
+		 */
+		@Override
+		public long getVersion() {
+			return UNVERSIONED;
+		}
+		
+		/**
+		 * @see FactoryView#getFactories()
+		 */
+		@Override
+		public List<F> getFactories() {
+			return Collections.unmodifiableList(extension.getFactories(filter));
+		}
+	
+	}
+	
+	/**
+	 * Get a live view on the factories of an extension
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param extension the extension
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @return the factory view, it is only cached if the extension is a
+	 *   {@link CachingObjectExtension}
+	 * @see CachingObjectExtension#getView(FactoryFilter)
+	 */
+	public static <T, F extends ExtensionObjectFactory<T>> FactoryView<T, F> getView(
+			ObjectExtension<T, F> extension, FactoryFilter<T, F> filter) {
+		if (extension instanceof CachingObjectExtension<?, ?>) {
+			return ((CachingObjectExtension<T, F>) extension).getView(filter);
+		}
+		return new UncachedView<T, F>(extension, filter);
+	}
+	
+	/**
+	 * Visit the factories of an extension accepted by a filter
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param extension the extension
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @param visitor the factory visitor
+	 * @return <code>false</code> if the iteration was stopped by the
+	 *   visitor, <code>true</code> otherwise
+	 * @see CachingObjectExtension#forEachFactory(FactoryFilter, FactoryVisitor)
+	 */
+	public static <T, F extends ExtensionObjectFactory<T>> boolean forEachFactory(
+			ObjectExtension<T, F> extension, FactoryFilter<T, F> filter,
+			FactoryVisitor<T, F> visitor) {
+		if (extension instanceof CachingObjectExtension<?, ?>) {
+			return ((CachingObjectExtension<T, F>) extension).forEachFactory(filter, visitor);
+		}
+		for (F factory : extension.getFactories(filter)) {
+			if (!visitor.visit(factory)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Get the first factory of an extension accepted by a filter
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param extension the extension
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @return the first accepted factory or <code>null</code>
+	 * @see CachingObjectExtension#findFirst(FactoryFilter)
+	 */
+	public static <T, F extends ExtensionObjectFactory<T>> F findFirst(
+			ObjectExtension<T, F> extension, FactoryFilter<T, F> filter) {
+		if (extension instanceof CachingObjectExtension<?, ?>) {
+			return ((CachingObjectExtension<T, F>) extension).findFirst(filter);
+		}
+		List<F> factories = extension.getFactories(filter);
+		return (factories.isEmpty()) ? (null) : (factories.get(0));
+	}
+	
+	/**
+	 * Count the factories of an extension accepted by a filter
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param extension the extension
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @return the number of accepted factories
+	 * @see CachingObjectExtension#countFactories(FactoryFilter)
+	 */
+	public static <T, F extends ExtensionObjectFactory<T>> int countFactories(
+			ObjectExtension<T, F> extension, FactoryFilter<T, F> filter) {
+		if (extension instanceof CachingObjectExtension<?, ?>) {
+			return ((CachingObjectExtension<T, F>) extension).countFactories(filter);
+		}
+		return extension.getFactories(filter).size();
+	}
+	
+	/**
+	 * Get the factories of an extension accepted by a filter asynchronously
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param extension the extension
+	 * @param filter the filter to apply, may be <code>null</code>
+	 * @param executor the executor to use, <code>null</code> for the
+	 *   default of the extension, or to run in the calling thread if it is
+	 *   no {@link CachingObjectExtension}
+	 * @return the future list of factories
+	 * @see CachingObjectExtension#getFactoriesAsync(FactoryFilter, Executor)
+	 */
+	public static <T, F extends ExtensionObjectFactory<T>> ListenableFuture<List<F>> getFactoriesAsync(
+			final ObjectExtension<T, F> extension, final FactoryFilter<T, F> filter,
+			Executor executor) {
+		if (extension instanceof CachingObjectExtension<?, ?>) {
+			return ((CachingObjectExtension<T, F>) extension).getFactoriesAsync(filter, executor);
+		}
+		return submit(new Callable<List<F>>() {
+			
+			@Override
+			public List<F> call() throws Exception {
+				return extension.getFactories(filter);
+			}
+		
+		}, executor);
+	}
+	
+	/**
+	 * Get the factory of an extension with the given ID asynchronously
+	 * 
+	 * @param <T> the extension object type
+	 * @param <F> the factory type
+	 * @param extension the extension
+	 * @param id the factory ID
+	 * @param executor the executor to use, <code>null</code> for the
+	 *   default of the extension, or to run in the calling thread if it is
+	 *   no {@link CachingObjectExtension}
+	 * @return the future factory, yields <code>null</code> if there is no
+	 *   factory with that ID
+	 * @see CachingObjectExtension#getFactoryAsync(String, Executor)
+	 */
+	public static <T, F extends ExtensionObjectFactory<T>> ListenableFuture<F> getFactoryAsync(
+			final ObjectExtension<T, F> extension, final String id, Executor executor) {
+		if (extension instanceof CachingObjectExtension<?, ?>) {
+			return ((CachingObjectExtension<T, F>) extension).getFactoryAsync(id, executor);
+		}
+		return submit(new Callable<F>() {
+			
+			@Override
+			public F call() throws Exception {
+				return extension.getFactory(id);
+			}
+		
+		}, executor);
+	}
+	
+	/**
+	 * Get the version of the factories of an extension
+	 * 
+	 * @param extension the extension
+	 * @return the factories version or {@link #UNVERSIONED} if the
+	 *   extension is no {@link CachingObjectExtension}
+	 * @see CachingObjectExtension#getVersion()
+	 */
+	public static long getVersion(ObjectExtension<?, ?> extension) {
+		if (extension instanceof CachingObjectExtension<?, ?>) {
+			return ((CachingObjectExtension<?, ?>) extension).getVersion();
+		}
+		return UNVERSIONED;
+	}
+	
+	/**
+	 * Execute a query with the given executor
+	 * 
+	 * @param <V> the query result type
+	 * @param query the query
+	 * @param executor the executor, <code>null</code> to execute the query
+	 *   in the calling thread
+	 * @return the future query result
+	 */
+	private static <V> ListenableFuture<V> submit(final Callable<V> query, Executor executor) {
+		final SettableFuture<V> result = SettableFuture.create();
+		Runnable task = new Runnable() {
+			
+			@Override
+			public void run() {
+				try {
+					result.set(query.call());
+				} catch (Throwable e) {
+					result.setException(e);
+				}
+			}
+		
+		};
+		
+		if (executor == null) {
+			task.run();
+		}
+		else {
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				result.setException(e);
+			}
+		}
+		return result;
+	}
+
+}
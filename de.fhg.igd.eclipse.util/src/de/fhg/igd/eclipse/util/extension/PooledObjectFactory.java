@@ -0,0 +1,603 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * <p>Title: PooledObjectFactory</p>
+ * <p>Description: Extension object factory wrapper that pools extension
+ * objects. {@link #createExtensionObject()} borrows an idle instance if
+ * one is available and {@link #dispose(Object)} returns the instance to
+ * the pool instead of disposing it, as long as the maximum number of idle
+ * instances is not exceeded. Instances that have been idle longer than
+ * the idle timeout are disposed, retaining at least the minimum number of
+ * idle instances. There is no background thread, idle instances are only
+ * evicted when an instance is borrowed or returned or when
+ * {@link #evict()} is called. Returned instances must not be used
+ * anymore. Instances that were not borrowed from the pool are disposed
+ * by the wrapped factory, returning an idle instance again is ignored.
+ * Instances created before the wrapped factory was reconfigured are
+ * disposed when they are returned.</p>
+ * @param <T> the extension object type
+ * @author Simon Templer
+ */
+public class PooledObjectFactory<T> extends ForwardingObjectFactory<T> {
+	
+	/**
+	 * Usage statistics of a pool
+	 */
+	public static final class PoolStatistics {
+		
+		private final long borrowed;
+		
+		private final long reused;
+		
+		private final long created;
+		
+		private final long returned;
+		
+		private final long destroyed;
+		
+		private final long validationFailures;
+		
+		private final long evicted;
+		
+		private final int active;
+		
+		private final int idle;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param borrowed the number of borrowed instances
+		 * @param reused the number of borrowed instances taken from the pool
+		 * @param created the number of created instances
+		 * @param returned the number of returned instances
+		 * @param destroyed the number of disposed instances
+		 * @param validationFailures the number of instances that failed
+		 *   validation
+		 * @param evicted the number of instances evicted because they were
+		 *   idle too long
+		 * @param active the number of currently borrowed instances
+		 * @param idle the number of currently idle instances
+		 */
+		private PoolStatistics(long borrowed, long reused, long created,
+				long returned, long destroyed, long validationFailures,
+				long evicted, int active, int idle) {
+			super();
+			this.borrowed = borrowed;
+			this.reused = reused;
+			this.created = created;
+			this.returned = returned;
+			this.destroyed = destroyed;
+			this.validationFailures = validationFailures;
+			this.evicted = evicted;
+			this.active = active;
+			this.idle = idle;
+		}
+		
+		/**
+		 * @return the number of borrowed instances
+		 */
+		public long getBorrowed() {
+			return borrowed;
+		}
+		
+		/**
+		 * @return the number of borrowed instances that were taken from
+		 *   the pool
+		 */
+		public long getReused() {
+			return reused;
+		}
+		
+		/**
+		 * @return the number of instances created by the wrapped factory
+		 */
+		public long getCreated() {
+			return created;
+		}
+		
+		/**
+		 * @return the number of instances returned
+		 */
+		public long getReturned() {
+			return returned;
+		}
+		
+		/**
+		 * @return the number of instances disposed by the wrapped factory
+		 */
+		public long getDestroyed() {
+			return destroyed;
+		}
+		
+		/**
+		 * @return the number of idle instances that failed validation
+		 */
+		public long getValidationFailures() {
+			return validationFailures;
+		}
+		
+		/**
+		 * @return the number of instances evicted because they were idle
+		 *   too long
+		 */
+		public long getEvicted() {
+			return evicted;
+		}
+		
+		/**
+		 * @return the number of currently borrowed instances
+		 */
+		public int getActive() {
+			return active;
+		}
+		
+		/**
+		 * @return the number of currently idle instances
+		 */
+		public int getIdle() {
+			return idle;
+		}
+		
+		/**
+		 * @see Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "borrowed=" + borrowed + ", reused=" + reused //$NON-NLS-1$ //$NON-NLS-2$
+					+ ", created=" + created + ", returned=" + returned //$NON-NLS-1$ //$NON-NLS-2$
+					+ ", destroyed=" + destroyed + ", validationFailures=" //$NON-NLS-1$ //$NON-NLS-2$
+					+ validationFailures + ", evicted=" + evicted //$NON-NLS-1$
+					+ ", active=" + active + ", idle=" + idle; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	
+	}
+	
+	/**
+	 * Idle instance
+	 */
+	private static class Idle<T> {
+		
+		private final T instance;
+		
+		private final long generation;
+		
+		private final long since;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param instance the instance
+		 * @param generation the configuration generation the instance was
+		 *   created in
+		 * @param since the time the instance was returned
+		 */
+		public Idle(T instance, long generation, long since) {
+			super();
+			this.instance = instance;
+			this.generation = generation;
+			this.since = since;
+		}
+	
+	}
+	
+	private static final Logger log = LoggerFactory.getLogger(PooledObjectFactory.class);
+	
+	private final int minIdle;
+	
+	private final int maxIdle;
+	
+	private final long idleTimeout;
+	
+	/**
+	 * The idle instances, most recently returned first
+	 */
+	private final Deque<Idle<T>> idle = new ArrayDeque<Idle<T>>();
+	
+	/**
+	 * The configuration generations of the borrowed instances, compared by
+	 * identity
+	 */
+	private final ConcurrentMap<T, Long> borrowedGenerations = new MapMaker()
+			.weakKeys().makeMap();
+	
+	/**
+	 * The configuration generation, changes when the instances have to be
+	 * recreated after configuring the wrapped factory
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	
+	private final AtomicInteger active = new AtomicInteger();
+	
+	private final AtomicLong borrowed = new AtomicLong();
+	
+	private final AtomicLong reused = new AtomicLong();
+	
+	private final AtomicLong created = new AtomicLong();
+	
+	private final AtomicLong returned = new AtomicLong();
+	
+	private final AtomicLong destroyed = new AtomicLong();
+	
+	private final AtomicLong validationFailures = new AtomicLong();
+	
+	private final AtomicLong evicted = new AtomicLong();
+	
+	/**
+	 * Create a pooling factory without idle timeout that keeps at most the
+	 * given number of idle instances
+	 * 
+	 * @param delegate the factory creating and disposing the instances
+	 * @param maxIdle the maximum number of idle instances
+	 */
+	public PooledObjectFactory(ExtensionObjectFactory<T> delegate, int maxIdle) {
+		this(delegate, 0, maxIdle, 0, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Create a pooling factory
+	 * 
+	 * @param delegate the factory creating and disposing the instances
+	 * @param minIdle the minimum number of idle instances retained on
+	 *   eviction
+	 * @param maxIdle the maximum number of idle instances
+	 * @param idleTimeout the time after which idle instances are evicted
+	 *   on the next borrow or return, zero or less for no eviction
+	 * @param unit the time unit of the idle timeout
+	 */
+	public PooledObjectFactory(ExtensionObjectFactory<T> delegate, int minIdle,
+			int maxIdle, long idleTimeout, TimeUnit unit) {
+		super(delegate);
+		if (minIdle < 0 || maxIdle < minIdle) {
+			throw new IllegalArgumentException("Invalid idle bounds: " + minIdle //$NON-NLS-1$
+					+ " - " + maxIdle); //$NON-NLS-1$
+		}
+		this.minIdle = minIdle;
+		this.maxIdle = maxIdle;
+		this.idleTimeout = (idleTimeout > 0) ? (unit.toNanos(idleTimeout)) : (0);
+	}
+	
+	/**
+	 * Borrow an instance from the pool, an instance is created if no valid
+	 * idle instance is available
+	 * 
+	 * @see ExtensionObjectFactory#createExtensionObject()
+	 */
+	@Override
+	public T createExtensionObject() throws Exception {
+		evict();
+		
+		Idle<T> candidate;
+		while ((candidate = pollIdle()) != null) {
+			if (candidate.generation != generation.get()) {
+				// created before reconfiguration
+				destroy(candidate.instance);
+				continue;
+			}
+			
+			if (isValid(candidate.instance)) {
+				reused.incrementAndGet();
+				return borrowed(candidate.instance, candidate.generation);
+			}
+			
+			validationFailures.incrementAndGet();
+			destroy(candidate.instance);
+		}
+		
+		long current = generation.get();
+		T instance = create();
+		return borrowed(instance, current);
+	}
+	
+	/**
+	 * Return an instance to the pool, the instance is disposed if the
+	 * maximum number of idle instances is reached. Instances not borrowed
+	 * from the pool are disposed with the wrapped factory, idle instances
+	 * returned again are ignored.
+	 * 
+	 * @see ExtensionObjectFactory#dispose(Object)
+	 */
+	@Override
+	public void dispose(T instance) {
+		if (instance == null) {
+			return;
+		}
+		
+		boolean borrowedInstance;
+		boolean pooled = false;
+		boolean idleInstance = false;
+		synchronized (idle) {
+			// checked under the lock so a concurrent second return sees the
+			// instance as idle
+			Long instanceGeneration = borrowedGenerations.remove(instance);
+			borrowedInstance = instanceGeneration != null;
+			if (borrowedInstance) {
+				long current = generation.get();
+				if (instanceGeneration.longValue() == current && idle.size() < maxIdle) {
+					idle.addFirst(new Idle<T>(instance, current, System.nanoTime()));
+					pooled = true;
+				}
+			}
+			else {
+				idleInstance = isIdle(instance);
+			}
+		}
+		
+		if (!borrowedInstance) {
+			if (idleInstance) {
+				log.warn("Instance of " + getIdentifier() + " was returned to the pool twice"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			else {
+				// not created by the pool
+				destroy(instance);
+			}
+			return;
+		}
+		
+		active.decrementAndGet();
+		returned.incrementAndGet();
+		
+		if (!pooled) {
+			destroy(instance);
+		}
+		
+		evict();
+	}
+	
+	/**
+	 * Configures the wrapped factory, idle instances are disposed if they
+	 * have to be recreated. Borrowed instances are disposed when they are
+	 * returned.
+	 * 
+	 * @see ExtensionObjectFactory#configure()
+	 */
+	@Override
+	public boolean configure() {
+		boolean recreate = super.configure();
+		if (recreate) {
+			generation.incrementAndGet();
+			clear();
+		}
+		return recreate;
+	}
+	
+	/**
+	 * Validate an idle instance before it is borrowed. Instances that are not
+	 * valid are disposed. The default implementation considers all instances
+	 * valid.
+	 * 
+	 * @param instance the instance
+	 * @return if the instance may be borrowed
+	 */
+	protected boolean validate(T instance) {
+		return true;
+	}
+	
+	/**
+	 * Create idle instances until the minimum number of idle instances is
+	 * reached
+	 * 
+	 * @throws Exception if creating an instance fails
+	 */
+	public void fill() throws Exception {
+		while (true) {
+			synchronized (idle) {
+				if (idle.size() >= minIdle) {
+					return;
+				}
+			}
+			
+			long current = generation.get();
+			T instance = create();
+			boolean pooled = false;
+			synchronized (idle) {
+				if (idle.size() < maxIdle && current == generation.get()) {
+					idle.addLast(new Idle<T>(instance, current, System.nanoTime()));
+					pooled = true;
+				}
+			}
+			if (!pooled) {
+				destroy(instance);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Dispose instances that have been idle longer than the idle timeout,
+	 * retaining at least the minimum number of idle instances
+	 */
+	public void evict() {
+		if (idleTimeout <= 0) {
+			return;
+		}
+		
+		List<T> expired = null;
+		long now = System.nanoTime();
+		synchronized (idle) {
+			// the oldest instances are at the end
+			Iterator<Idle<T>> it = idle.descendingIterator();
+			while (idle.size() > minIdle && it.hasNext()) {
+				Idle<T> candidate = it.next();
+				if (now - candidate.since < idleTimeout) {
+					break;
+				}
+				it.remove();
+				if (expired == null) {
+					expired = new ArrayList<T>();
+				}
+				expired.add(candidate.instance);
+			}
+		}
+		
+		if (expired != null) {
+			evicted.addAndGet(expired.size());
+			for (T instance : expired) {
+				destroy(instance);
+			}
+		}
+	}
+	
+	/**
+	 * Dispose all idle instances
+	 */
+	public void clear() {
+		List<Idle<T>> instances;
+		synchronized (idle) {
+			instances = new ArrayList<Idle<T>>(idle);
+			idle.clear();
+		}
+		
+		for (Idle<T> candidate : instances) {
+			destroy(candidate.instance);
+		}
+	}
+	
+	/**
+	 * Get the usage statistics of the pool
+	 * 
+	 * @return the pool statistics
+	 */
+	public PoolStatistics getStatistics() {
+		int idleCount;
+		synchronized (idle) {
+			idleCount = idle.size();
+		}
+		return new PoolStatistics(borrowed.get(), reused.get(), created.get(),
+				returned.get(), destroyed.get(), validationFailures.get(),
+				evicted.get(), active.get(), idleCount);
+	}
+	
+	/**
+	 * @return the minimum number of idle instances
+	 */
+	public int getMinIdle() {
+		return minIdle;
+	}
+	
+	/**
+	 * @return the maximum number of idle instances
+	 */
+	public int getMaxIdle() {
+		return maxIdle;
+	}
+	
+	/**
+	 * Take the most recently returned idle instance
+	 * 
+	 * @return the idle instance or <code>null</code>
+	 */
+	private Idle<T> pollIdle() {
+		synchronized (idle) {
+			return idle.pollFirst();
+		}
+	}
+	
+	/**
+	 * Determine if an instance is idle, must be called while holding the
+	 * lock on the idle instances
+	 * 
+	 * @param instance the instance
+	 * @return if the instance is in the pool, compared by identity
+	 */
+	private boolean isIdle(T instance) {
+		for (Idle<T> candidate : idle) {
+			if (candidate.instance == instance) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Validate an instance
+	 * 
+	 * @param instance the instance
+	 * @return if the instance is valid
+	 */
+	private boolean isValid(T instance) {
+		try {
+			return validate(instance);
+		} catch (Exception e) {
+			log.warn("Validating pooled instance of " + getIdentifier() + " failed", e); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+	}
+	
+	/**
+	 * Mark an instance as borrowed
+	 * 
+	 * @param instance the instance
+	 * @param instanceGeneration the configuration generation the instance
+	 *   was created in
+	 * @return the instance
+	 */
+	private T borrowed(T instance, long instanceGeneration) {
+		borrowed.incrementAndGet();
+		active.incrementAndGet();
+		if (instance != null) {
+			borrowedGenerations.put(instance, instanceGeneration);
+		}
+		return instance;
+	}
+	
+	/**
+	 * Create an instance with the wrapped factory
+	 * 
+	 * @return the created instance
+	 * @throws Exception if creating the instance fails
+	 */
+	private T create() throws Exception {
+		T instance = getDelegate().createExtensionObject();
+		created.incrementAndGet();
+		return instance;
+	}
+	
+	/**
+	 * Dispose an instance with the wrapped factory
+	 * 
+	 * @param instance the instance
+	 */
+	private void destroy(T instance) {
+		destroyed.incrementAndGet();
+		try {
+			getDelegate().dispose(instance);
+		} catch (Exception e) {
+			log.warn("Disposing pooled instance of " + getIdentifier() + " failed", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+}
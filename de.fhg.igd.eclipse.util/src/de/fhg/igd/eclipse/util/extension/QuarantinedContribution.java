@@ -0,0 +1,118 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+/**
+ * <p>Title: QuarantinedContribution</p>
+ * <p>Description: Describes a configuration element for which creating the
+ * factory or factory collection failed and that is not retried before
+ * {@link #getNextRetry()}.</p>
+ * @author Simon Templer
+ */
+public final class QuarantinedContribution {
+	
+	private final String contributor;
+	
+	private final String elementName;
+	
+	private final String identifier;
+	
+	private final int failures;
+	
+	private final Throwable lastError;
+	
+	private final long nextRetry;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param contributor the contributor name
+	 * @param elementName the configuration element name
+	 * @param identifier the element identifier, may be <code>null</code>
+	 * @param failures the number of consecutive failures
+	 * @param lastError the error of the last failure
+	 * @param nextRetry the time of the next retry in milliseconds
+	 */
+	QuarantinedContribution(String contributor, String elementName,
+			String identifier, int failures, Throwable lastError, long nextRetry) {
+		super();
+		this.contributor = contributor;
+		this.elementName = elementName;
+		this.identifier = identifier;
+		this.failures = failures;
+		this.lastError = lastError;
+		this.nextRetry = nextRetry;
+	}
+	
+	/**
+	 * @return the name of the contributor of the configuration element
+	 */
+	public String getContributor() {
+		return contributor;
+	}
+	
+	/**
+	 * @return the configuration element name
+	 */
+	public String getElementName() {
+		return elementName;
+	}
+	
+	/**
+	 * @return the value of the ID attribute of the configuration element,
+	 *   <code>null</code> if unknown
+	 */
+	public String getIdentifier() {
+		return identifier;
+	}
+	
+	/**
+	 * @return the number of consecutive failures
+	 */
+	public int getFailures() {
+		return failures;
+	}
+	
+	/**
+	 * @return the error of the last failure
+	 */
+	public Throwable getLastError() {
+		return lastError;
+	}
+	
+	/**
+	 * @return the time of the next retry in milliseconds, as returned by
+	 *   {@link System#currentTimeMillis()}
+	 */
+	public long getNextRetry() {
+		return nextRetry;
+	}
+	
+	/**
+	 * @see Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return contributor + "/" + elementName //$NON-NLS-1$
+				+ ((identifier == null) ? ("") : (" " + identifier)) //$NON-NLS-1$ //$NON-NLS-2$
+				+ " (" + failures + " failures)"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+}
@@ -0,0 +1,166 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * <p>Title: SharedObjectFactory</p>
+ * <p>Description: Extension object factory wrapper that shares a single
+ * extension object between all callers of {@link #createExtensionObject()}.
+ * The instances are reference counted, {@link #dispose(Object)} only
+ * disposes an instance when the last holder has released it. If a call to
+ * {@link #configure()} requires objects to be recreated, a new instance is
+ * created for subsequent callers while the previous one is disposed when
+ * its holders release it.</p>
+ * @param <T> the extension object type
+ * @author Simon Templer
+ */
+public class SharedObjectFactory<T> extends ForwardingObjectFactory<T> {
+	
+	/**
+	 * A shared instance and its reference count
+	 */
+	private static class Shared<T> {
+		
+		private final T instance;
+		
+		private int references = 0;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param instance the shared instance
+		 */
+		public Shared(T instance) {
+			super();
+			this.instance = instance;
+		}
+	
+	}
+	
+	/**
+	 * The instances currently held
+	 */
+	private final Map<T, Shared<T>> held = new IdentityHashMap<T, Shared<T>>();
+	
+	/**
+	 * The instance handed out by {@link #createExtensionObject()},
+	 * <code>null</code> if none is held or it is being recreated
+	 */
+	private Shared<T> current;
+	
+	/**
+	 * Create a factory sharing instances created by the given factory
+	 * 
+	 * @param delegate the factory creating and disposing the instances
+	 */
+	public SharedObjectFactory(ExtensionObjectFactory<T> delegate) {
+		super(delegate);
+	}
+	
+	/**
+	 * Get the shared instance, it is created if no holder exists
+	 * 
+	 * @see ExtensionObjectFactory#createExtensionObject()
+	 */
+	@Override
+	public synchronized T createExtensionObject() throws Exception {
+		if (current == null) {
+			T instance = getDelegate().createExtensionObject();
+			if (instance == null) {
+				return null;
+			}
+			current = new Shared<T>(instance);
+			held.put(instance, current);
+		}
+		
+		current.references++;
+		return current.instance;
+	}
+	
+	/**
+	 * Release a shared instance, it is disposed if it is not held any more
+	 * 
+	 * @see ExtensionObjectFactory#dispose(Object)
+	 */
+	@Override
+	public void dispose(T instance) {
+		if (instance == null) {
+			return;
+		}
+		
+		synchronized (this) {
+			Shared<T> shared = held.get(instance);
+			if (shared != null) {
+				if (--shared.references > 0) {
+					return;
+				}
+				
+				held.remove(instance);
+				if (current == shared) {
+					current = null;
+				}
+			}
+		}
+		
+		// not shared or last holder
+		super.dispose(instance);
+	}
+	
+	/**
+	 * Configures the wrapped factory, if objects have to be recreated
+	 * subsequent callers get a new instance
+	 * 
+	 * @see ExtensionObjectFactory#configure()
+	 */
+	@Override
+	public boolean configure() {
+		boolean recreate = super.configure();
+		if (recreate) {
+			synchronized (this) {
+				current = null;
+			}
+		}
+		return recreate;
+	}
+	
+	/**
+	 * Get the number of holders of the current shared instance
+	 * 
+	 * @return the reference count, zero if no instance is held
+	 */
+	public synchronized int getReferenceCount() {
+		return (current == null) ? (0) : (current.references);
+	}
+	
+	/**
+	 * Get the number of instances that have not been disposed yet. This
+	 * is more than one only if instances have been recreated while they
+	 * were still held.
+	 * 
+	 * @return the number of held instances
+	 */
+	public synchronized int getInstanceCount() {
+		return held.size();
+	}
+
+}
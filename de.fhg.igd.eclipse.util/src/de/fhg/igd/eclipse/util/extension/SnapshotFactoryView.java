@@ -0,0 +1,130 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Title: SnapshotFactoryView</p>
+ * <p>Description: {@link FactoryView} on the factory snapshot of an
+ * {@link AbstractExtension}. The filtered list is cached and only computed
+ * again when the snapshot changes.</p>
+ * <p>Factories provided by factory collections are added on each access,
+ * as collections may change independently.</p>
+ * @param <T> the extension object type
+ * @param <F> the factory type
+ * @author Simon Templer
+ */
+final class SnapshotFactoryView<T, F extends ExtensionObjectFactory<T>> implements FactoryView<T, F> {
+	
+	/**
+	 * Filtered factories of a snapshot
+	 * 
+	 * @param <F> the factory type
+	 */
+	private static class Filtered<F> {
+		
+		private final long version;
+		
+		private final List<F> factories;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param version the snapshot version
+		 * @param factories the filtered factories
+		 */
+		public Filtered(long version, List<F> factories) {
+			super();
+			this.version = version;
+			this.factories = factories;
+		}
+	
+	}
+	
+	private final AbstractExtension<T, F> extension;
+	
+	private final FactoryFilter<T, F> filter;
+	
+	private volatile Filtered<F> filtered;
+	
+	/**
+	 * Create a factory view
+	 * 
+	 * @param extension the extension
+	 * @param filter the filter, may be <code>null</code>
+	 */
+	SnapshotFactoryView(AbstractExtension<T, F> extension, FactoryFilter<T, F> filter) {
+		super();
+		this.extension = extension;
+		this.filter = filter;
+	}
+	
+	/**
+	 * @see FactoryView#getFilter()
+	 */
+	@Override
+	public FactoryFilter<T, F> getFilter() {
+		return filter;
+	}
+	
+	/**
+	 * @see FactoryView#getVersion()
+	 */
+	@Override
+	public long getVersion() {
+		return extension.getVersion();
+	}
+	
+	/**
+	 * @see FactoryView#getFactories()
+	 */
+	@Override
+	public List<F> getFactories() {
+		FactorySnapshot<T, F> snapshot = extension.getSnapshot();
+		
+		Filtered<F> current = filtered;
+		if (current == null || current.version != snapshot.getVersion()) {
+			List<F> factories = new ArrayList<F>();
+			for (F factory : snapshot.getFactories()) {
+				if (filter == null || filter.acceptFactory(factory)) {
+					factories.add(factory);
+				}
+			}
+			current = new Filtered<F>(snapshot.getVersion(),
+					Collections.unmodifiableList(factories));
+			filtered = current;
+		}
+		
+		if (snapshot.getCollections().isEmpty()) {
+			return current.factories;
+		}
+		
+		List<F> result = new ArrayList<F>(current.factories);
+		if (AbstractExtension.addCollectionFactories(snapshot.getCollections(),
+				filter, result)) {
+			DefinitionSortKey.sort(result);
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+}
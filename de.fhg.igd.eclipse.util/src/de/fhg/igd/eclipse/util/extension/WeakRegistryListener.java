@@ -0,0 +1,153 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension;
+
+import java.lang.ref.WeakReference;
+
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
+
+/**
+ * <p>Title: WeakRegistryListener</p>
+ * <p>Description: Registry event listener that only holds a weak reference
+ * to its owner. When the owner has been garbage collected the listener
+ * removes itself from the registry on the next event, so caches listening
+ * for registry changes don't keep their owners alive.</p>
+ * @param <O> the owner type
+ * @author Simon Templer
+ */
+public abstract class WeakRegistryListener<O> implements IRegistryEventListener {
+	
+	private final WeakReference<O> owner;
+	
+	private final IExtensionRegistry registry;
+	
+	/**
+	 * Create a listener for the given owner. The listener is not added to
+	 * the registry, use {@link #register(String)} for that.
+	 * 
+	 * @param owner the owner
+	 * @param registry the extension registry
+	 */
+	protected WeakRegistryListener(O owner, IExtensionRegistry registry) {
+		this.owner = new WeakReference<O>(owner);
+		this.registry = registry;
+	}
+	
+	/**
+	 * Add the listener to the registry
+	 * 
+	 * @param extensionPointID the ID of the extension point to listen to
+	 */
+	public void register(String extensionPointID) {
+		registry.addListener(this, extensionPointID);
+	}
+	
+	/**
+	 * Remove the listener from the registry
+	 */
+	public void unregister() {
+		registry.removeListener(this);
+	}
+	
+	/**
+	 * Get the owner, removes the listener from the registry if the owner
+	 * is no longer available
+	 * 
+	 * @return the owner or <code>null</code>
+	 */
+	private O getOwner() {
+		O result = owner.get();
+		if (result == null) {
+			unregister();
+		}
+		return result;
+	}
+	
+	/**
+	 * @see IRegistryEventListener#added(IExtension[])
+	 */
+	@Override
+	public void added(IExtension[] extensions) {
+		O o = getOwner();
+		if (o != null) {
+			added(o, extensions);
+		}
+	}
+	
+	/**
+	 * @see IRegistryEventListener#removed(IExtension[])
+	 */
+	@Override
+	public void removed(IExtension[] extensions) {
+		O o = getOwner();
+		if (o != null) {
+			removed(o, extensions);
+		}
+	}
+	
+	/**
+	 * @see IRegistryEventListener#added(IExtensionPoint[])
+	 */
+	@Override
+	public void added(IExtensionPoint[] extensionPoints) {
+		O o = getOwner();
+		if (o != null) {
+			reset(o);
+		}
+	}
+	
+	/**
+	 * @see IRegistryEventListener#removed(IExtensionPoint[])
+	 */
+	@Override
+	public void removed(IExtensionPoint[] extensionPoints) {
+		O o = getOwner();
+		if (o != null) {
+			reset(o);
+		}
+	}
+	
+	/**
+	 * Called when extensions have been added
+	 * 
+	 * @param owner the owner
+	 * @param extensions the added extensions
+	 */
+	protected abstract void added(O owner, IExtension[] extensions);
+	
+	/**
+	 * Called when extensions have been removed
+	 * 
+	 * @param owner the owner
+	 * @param extensions the removed extensions
+	 */
+	protected abstract void removed(O owner, IExtension[] extensions);
+	
+	/**
+	 * Called when the extension point itself has been added or removed
+	 * 
+	 * @param owner the owner
+	 */
+	protected abstract void reset(O owner);
+
+}
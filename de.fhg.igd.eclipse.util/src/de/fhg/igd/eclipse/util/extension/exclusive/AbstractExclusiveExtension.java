@@ -21,15 +21,23 @@ package de.fhg.igd.eclipse.util.extension.exclusive;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
+import de.fhg.igd.eclipse.util.extension.CachingObjectExtension;
+import de.fhg.igd.eclipse.util.extension.ExtensionMetrics;
 import de.fhg.igd.eclipse.util.extension.ExtensionObjectDefinition;
 import de.fhg.igd.eclipse.util.extension.ExtensionObjectFactory;
 import de.fhg.igd.eclipse.util.extension.ExtensionObjectFactoryCollection;
 import de.fhg.igd.eclipse.util.extension.FactoryFilter;
+import de.fhg.igd.eclipse.util.extension.FactoryView;
+import de.fhg.igd.eclipse.util.extension.FactoryVisitor;
 import de.fhg.igd.eclipse.util.extension.ObjectExtension;
+import de.fhg.igd.eclipse.util.extension.ObjectExtensionUtil;
 
 /**
  * <p>Title: AbstractExclusiveExtension</p>
@@ -40,7 +48,7 @@ import de.fhg.igd.eclipse.util.extension.ObjectExtension;
  * @author Simon Templer
  */
 public abstract class AbstractExclusiveExtension<T, F extends ExtensionObjectFactory<T>> 
-	implements ExclusiveExtension<T, F> {
+	implements ExclusiveExtension<T, F>, CachingObjectExtension<T, F> {
 	
 	/**
 	 * The log
@@ -172,6 +180,56 @@ public abstract class AbstractExclusiveExtension<T, F extends ExtensionObjectFac
 		return extension.getFactories(filter);
 	}
 
+	/**
+	 * @see CachingObjectExtension#getView(FactoryFilter)
+	 */
+	@Override
+	public FactoryView<T, F> getView(FactoryFilter<T, F> filter) {
+		return ObjectExtensionUtil.getView(extension, filter);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#forEachFactory(FactoryFilter, FactoryVisitor)
+	 */
+	@Override
+	public boolean forEachFactory(FactoryFilter<T, F> filter,
+			FactoryVisitor<T, F> visitor) {
+		return ObjectExtensionUtil.forEachFactory(extension, filter, visitor);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#findFirst(FactoryFilter)
+	 */
+	@Override
+	public F findFirst(FactoryFilter<T, F> filter) {
+		return ObjectExtensionUtil.findFirst(extension, filter);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#countFactories(FactoryFilter)
+	 */
+	@Override
+	public int countFactories(FactoryFilter<T, F> filter) {
+		return ObjectExtensionUtil.countFactories(extension, filter);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#getFactoriesAsync(FactoryFilter, Executor)
+	 */
+	@Override
+	public ListenableFuture<List<F>> getFactoriesAsync(
+			FactoryFilter<T, F> filter, Executor executor) {
+		return ObjectExtensionUtil.getFactoriesAsync(extension, filter, executor);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#getFactoryAsync(String, Executor)
+	 */
+	@Override
+	public ListenableFuture<F> getFactoryAsync(String id, Executor executor) {
+		return ObjectExtensionUtil.getFactoryAsync(extension, id, executor);
+	}
+	
 	/**
 	 * @see ObjectExtension#getFactoryCollections()
 	 */
@@ -180,6 +238,14 @@ public abstract class AbstractExclusiveExtension<T, F extends ExtensionObjectFac
 		return extension.getFactoryCollections();
 	}
 	
+	/**
+	 * @see CachingObjectExtension#getVersion()
+	 */
+	@Override
+	public long getVersion() {
+		return ObjectExtensionUtil.getVersion(extension);
+	}
+	
 	/**
 	 * @see ExclusiveExtension#addListener(ExclusiveExtensionListener)
 	 */
@@ -254,7 +320,7 @@ public abstract class AbstractExclusiveExtension<T, F extends ExtensionObjectFac
 		F oldFactory = definition;
 		
 		try {
-			current = factory.createExtensionObject();
+			current = ExtensionMetrics.createExtensionObject(extension, factory);
 			definition = factory;
 			// mark as initialized
 			initialized = true;
@@ -278,7 +344,7 @@ public abstract class AbstractExclusiveExtension<T, F extends ExtensionObjectFac
 		
 		// dispose old instance
 		if (oldInstance != null && oldFactory != null) {
-			oldFactory.dispose(oldInstance);
+			ExtensionMetrics.dispose(extension, oldFactory, oldInstance);
 		}
 		
 		return true;
@@ -25,14 +25,22 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
+import de.fhg.igd.eclipse.util.extension.CachingObjectExtension;
+import de.fhg.igd.eclipse.util.extension.ExtensionMetrics;
 import de.fhg.igd.eclipse.util.extension.ExtensionObjectFactory;
 import de.fhg.igd.eclipse.util.extension.ExtensionObjectFactoryCollection;
 import de.fhg.igd.eclipse.util.extension.FactoryFilter;
+import de.fhg.igd.eclipse.util.extension.FactoryView;
+import de.fhg.igd.eclipse.util.extension.FactoryVisitor;
 import de.fhg.igd.eclipse.util.extension.ObjectExtension;
+import de.fhg.igd.eclipse.util.extension.ObjectExtensionUtil;
 
 /**
  * <p>Title: SelectiveExtension</p>
@@ -43,7 +51,7 @@ import de.fhg.igd.eclipse.util.extension.ObjectExtension;
  * @author Simon Templer
  */
 public abstract class AbstractSelectiveExtension<T, F extends ExtensionObjectFactory<T>>
-	implements SelectiveExtension<T, F> {
+	implements SelectiveExtension<T, F>, CachingObjectExtension<T, F> {
 	
 	private static final Logger log = LoggerFactory.getLogger(AbstractSelectiveExtension.class);
 	
@@ -103,7 +111,7 @@ public abstract class AbstractSelectiveExtension<T, F extends ExtensionObjectFac
 		else {
 			try {
 				// create and add object
-				T object = factory.createExtensionObject();
+				T object = ExtensionMetrics.createExtensionObject(extension, factory);
 				activeDefinitions.put(factory, object);
 				activeObjects.put(object, factory);
 				// mark as initialized
@@ -153,7 +161,7 @@ public abstract class AbstractSelectiveExtension<T, F extends ExtensionObjectFac
 				}
 			}
 			
-			factory.dispose(object);
+			ExtensionMetrics.dispose(extension, factory, object);
 		}
 	}
 
@@ -224,6 +232,56 @@ public abstract class AbstractSelectiveExtension<T, F extends ExtensionObjectFac
 		return extension.getFactories(filter);
 	}
 
+	/**
+	 * @see CachingObjectExtension#getView(FactoryFilter)
+	 */
+	@Override
+	public FactoryView<T, F> getView(FactoryFilter<T, F> filter) {
+		return ObjectExtensionUtil.getView(extension, filter);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#forEachFactory(FactoryFilter, FactoryVisitor)
+	 */
+	@Override
+	public boolean forEachFactory(FactoryFilter<T, F> filter,
+			FactoryVisitor<T, F> visitor) {
+		return ObjectExtensionUtil.forEachFactory(extension, filter, visitor);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#findFirst(FactoryFilter)
+	 */
+	@Override
+	public F findFirst(FactoryFilter<T, F> filter) {
+		return ObjectExtensionUtil.findFirst(extension, filter);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#countFactories(FactoryFilter)
+	 */
+	@Override
+	public int countFactories(FactoryFilter<T, F> filter) {
+		return ObjectExtensionUtil.countFactories(extension, filter);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#getFactoriesAsync(FactoryFilter, Executor)
+	 */
+	@Override
+	public ListenableFuture<List<F>> getFactoriesAsync(
+			FactoryFilter<T, F> filter, Executor executor) {
+		return ObjectExtensionUtil.getFactoriesAsync(extension, filter, executor);
+	}
+	
+	/**
+	 * @see CachingObjectExtension#getFactoryAsync(String, Executor)
+	 */
+	@Override
+	public ListenableFuture<F> getFactoryAsync(String id, Executor executor) {
+		return ObjectExtensionUtil.getFactoryAsync(extension, id, executor);
+	}
+	
 	/**
 	 * @see ObjectExtension#getFactoryCollections()
 	 */
@@ -232,4 +290,12 @@ public abstract class AbstractSelectiveExtension<T, F extends ExtensionObjectFac
 		return extension.getFactoryCollections();
 	}
 
+	/**
+	 * @see CachingObjectExtension#getVersion()
+	 */
+	@Override
+	public long getVersion() {
+		return ObjectExtensionUtil.getVersion(extension);
+	}
+
 }
@@ -0,0 +1,173 @@
+// Fraunhofer Institute for Computer Graphics Research (IGD)
+// Department Spatial Information Management (GEO)
+//
+// Copyright (c) 2014 Fraunhofer IGD
+//
+// This file is part of eclipse-util.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package de.fhg.igd.eclipse.util.extension.simple;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.GenericMapMaker;
+import com.google.common.collect.MapEvictionListener;
+import com.google.common.collect.MapMaker;
+
+/**
+ * <p>Title: ElementCachePolicy</p>
+ * <p>Description: Determines how long an {@link IdentifiableExtension}
+ * retains the elements it has created. Evicted elements are created again
+ * when they are requested. The caches are built with the eviction API of
+ * {@link MapMaker}, which is only available up to Guava 10.</p>
+ * @author Simon Templer
+ */
+public final class ElementCachePolicy {
+	
+	/**
+	 * The policy kinds
+	 */
+	private enum Kind {
+		UNBOUNDED, LRU, SOFT, EXPIRE_AFTER_ACCESS
+	}
+	
+	private static final ElementCachePolicy UNBOUNDED = new ElementCachePolicy(Kind.UNBOUNDED, 0, 0);
+	
+	private static final ElementCachePolicy SOFT = new ElementCachePolicy(Kind.SOFT, 0, 0);
+	
+	private final Kind kind;
+	
+	private final int maximumSize;
+	
+	private final long expireNanos;
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param kind the policy kind
+	 * @param maximumSize the maximum number of elements
+	 * @param expireNanos the time after the last access elements expire
+	 */
+	private ElementCachePolicy(Kind kind, int maximumSize, long expireNanos) {
+		super();
+		this.kind = kind;
+		this.maximumSize = maximumSize;
+		this.expireNanos = expireNanos;
+	}
+	
+	/**
+	 * Get the policy that retains all created elements for the life of the
+	 * extension
+	 * 
+	 * @return the unbounded policy
+	 */
+	public static ElementCachePolicy unbounded() {
+		return UNBOUNDED;
+	}
+	
+	/**
+	 * Get a policy that retains at most the given number of elements,
+	 * evicting the least recently used elements first
+	 * 
+	 * @param maximumSize the maximum number of retained elements
+	 * @return the size bound policy
+	 */
+	public static ElementCachePolicy lru(int maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("Maximum size must not be negative"); //$NON-NLS-1$
+		}
+		return new ElementCachePolicy(Kind.LRU, maximumSize, 0);
+	}
+	
+	/**
+	 * Get the policy that retains elements through soft references, so they
+	 * may be reclaimed by the garbage collector when memory is low
+	 * 
+	 * @return the soft reference policy
+	 */
+	public static ElementCachePolicy soft() {
+		return SOFT;
+	}
+	
+	/**
+	 * Get a policy that evicts elements that have not been accessed for the
+	 * given time
+	 * 
+	 * @param duration the time after the last access
+	 * @param unit the time unit
+	 * @return the expiring policy
+	 */
+	public static ElementCachePolicy expireAfterAccess(long duration, TimeUnit unit) {
+		if (duration <= 0) {
+			throw new IllegalArgumentException("Duration must be positive"); //$NON-NLS-1$
+		}
+		return new ElementCachePolicy(Kind.EXPIRE_AFTER_ACCESS, 0, unit.toNanos(duration));
+	}
+	
+	/**
+	 * Determine if the policy retains all created elements
+	 * 
+	 * @return if no elements are ever evicted
+	 */
+	public boolean isUnbounded() {
+		return kind == Kind.UNBOUNDED;
+	}
+	
+	/**
+	 * Create the map holding the cached elements
+	 * 
+	 * @param <T> the element type
+	 * @param listener the listener notified on evictions
+	 * @return the element map
+	 */
+	<T> ConcurrentMap<String, T> createMap(MapEvictionListener<String, T> listener) {
+		if (kind == Kind.UNBOUNDED) {
+			return new ConcurrentHashMap<String, T>();
+		}
+		
+		GenericMapMaker<String, T> maker = new MapMaker().evictionListener(listener);
+		switch (kind) {
+		case LRU:
+			maker = maker.maximumSize(maximumSize);
+			break;
+		case SOFT:
+			maker = maker.softValues();
+			break;
+		case EXPIRE_AFTER_ACCESS:
+			maker = maker.expireAfterAccess(expireNanos, TimeUnit.NANOSECONDS);
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+		return maker.makeMap();
+	}
+	
+	/**
+	 * @see Object#toString()
+	 */
+	@Override
+	public String toString() {
+		switch (kind) {
+		case LRU:
+			return "lru(" + maximumSize + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+		case EXPIRE_AFTER_ACCESS:
+			return "expireAfterAccess(" + TimeUnit.NANOSECONDS.toMillis(expireNanos) + " ms)"; //$NON-NLS-1$ //$NON-NLS-2$
+		default:
+			return kind.name().toLowerCase();
+		}
+	}
+
+}
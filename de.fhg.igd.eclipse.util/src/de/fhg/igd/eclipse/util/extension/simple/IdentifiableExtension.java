@@ -25,17 +25,35 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.Platform;
 
+import com.google.common.collect.MapEvictionListener;
+import com.google.common.collect.MapMaker;
+
+import de.fhg.igd.eclipse.util.extension.ExtensionIndex;
+import de.fhg.igd.eclipse.util.extension.IndexedDefinition;
 import de.fhg.igd.eclipse.util.extension.ObjectExtension;
+import de.fhg.igd.eclipse.util.extension.WeakRegistryListener;
 
 /**
  * Extension for configuration elements representing a certain type that has
  * a String identifier.<br>
  * In contrast to an {@link ObjectExtension} the extension doesn't contain
  * factories but data objects corresponding to the configuration elements.
+ * The configuration elements are indexed by their ID attribute, elements
+ * are only created when they are requested. The index is discarded when
+ * the extension registry changes.<br>
+ * The extension is thread safe. Each element is created only once, even if
+ * requested concurrently, and reading created elements requires no locking.
+ * How long created elements are retained is determined by the
+ * {@link ElementCachePolicy}.
  * @param <T> the extension element type
  *  
  * @author Simon Templer
@@ -55,6 +73,197 @@ public abstract class IdentifiableExtension<T extends IdentifiableExtension.Iden
 		public String getId();
 
 	}
+	
+	/**
+	 * Statistics of the element cache
+	 */
+	public static final class CacheStatistics {
+		
+		private final long hits;
+		
+		private final long misses;
+		
+		private final long evictions;
+		
+		private final int size;
+		
+		/**
+		 * Constructor
+		 * 
+		 * @param hits the number of requests served from the cache
+		 * @param misses the number of requests not served from the cache
+		 * @param evictions the number of evicted elements
+		 * @param size the number of cached elements
+		 */
+		private CacheStatistics(long hits, long misses, long evictions, int size) {
+			super();
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.size = size;
+		}
+		
+		/**
+		 * @return the number of requests served from the cache
+		 */
+		public long getHits() {
+			return hits;
+		}
+		
+		/**
+		 * @return the number of requests not served from the cache
+		 */
+		public long getMisses() {
+			return misses;
+		}
+		
+		/**
+		 * @return the number of elements evicted by the cache policy
+		 */
+		public long getEvictions() {
+			return evictions;
+		}
+		
+		/**
+		 * @return the number of cached elements
+		 */
+		public int getSize() {
+			return size;
+		}
+		
+		/**
+		 * @return the ratio of requests served from the cache, one if there
+		 *   were no requests
+		 */
+		public double getHitRate() {
+			long requests = hits + misses;
+			return (requests == 0) ? (1.0) : ((double) hits / requests);
+		}
+		
+		/**
+		 * @see Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "hits=" + hits + ", misses=" + misses + ", evictions=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ evictions + ", size=" + size; //$NON-NLS-1$
+		}
+	
+	}
+	
+	/**
+	 * Listener discarding the element index when the extension point changes
+	 */
+	private static class RegistryListener extends WeakRegistryListener<IdentifiableExtension<?>> {
+		
+		/**
+		 * @see WeakRegistryListener#WeakRegistryListener(Object, IExtensionRegistry)
+		 */
+		public RegistryListener(IdentifiableExtension<?> owner,
+				IExtensionRegistry registry) {
+			super(owner, registry);
+		}
+		
+		@Override
+		protected void added(IdentifiableExtension<?> owner, IExtension[] extensions) {
+			owner.invalidate(false);
+		}
+		
+		@Override
+		protected void removed(IdentifiableExtension<?> owner, IExtension[] extensions) {
+			owner.invalidate(true);
+		}
+		
+		@Override
+		protected void reset(IdentifiableExtension<?> owner) {
+			owner.invalidate(true);
+		}
+	
+	}
+	
+	/**
+	 * Configuration elements indexed by ID
+	 */
+	private static class ElementIndex {
+		
+		/**
+		 * All configuration elements in registry order
+		 */
+		private final IConfigurationElement[] elements;
+		
+		/**
+		 * The configuration elements for each ID in registry order
+		 */
+		private final Map<String, List<IConfigurationElement>> byId = new HashMap<String, List<IConfigurationElement>>();
+		
+		/**
+		 * Bounded set of requested IDs without a configuration element
+		 */
+		private final ConcurrentMap<String, Boolean> missing = new MapMaker()
+				.maximumSize(MAX_MISSING_IDS).makeMap();
+		
+		/**
+		 * The result of {@link IdentifiableExtension#getElements()} for this
+		 * index, <code>null</code> if not yet created or caching is disabled
+		 */
+		private volatile List<?> all;
+		
+		/**
+		 * The number of removals from the extension point when the index was
+		 * created
+		 */
+		private final long generation;
+		
+		/**
+		 * Create the index
+		 * 
+		 * @param elements the configuration elements
+		 * @param idAttribute the name of the ID attribute
+		 * @param generation the number of removals from the extension point
+		 */
+		public ElementIndex(IConfigurationElement[] elements, String idAttribute,
+				long generation) {
+			super();
+			this.elements = elements;
+			this.generation = generation;
+			for (IConfigurationElement element : elements) {
+				String elementId = element.getAttribute(idAttribute);
+				if (elementId != null) {
+					List<IConfigurationElement> candidates = byId.get(elementId);
+					if (candidates == null) {
+						candidates = new ArrayList<IConfigurationElement>(1);
+						byId.put(elementId, candidates);
+					}
+					candidates.add(element);
+				}
+			}
+		}
+		
+		/**
+		 * Determine if an ID is known to be missing
+		 * 
+		 * @param id the ID
+		 * @return if the ID is missing
+		 */
+		public boolean isMissing(String id) {
+			return missing.containsKey(id);
+		}
+		
+		/**
+		 * Remember an ID as missing
+		 * 
+		 * @param id the ID
+		 */
+		public void addMissing(String id) {
+			missing.put(id, Boolean.TRUE);
+		}
+	
+	}
+	
+	/**
+	 * The maximum number of remembered IDs without an element
+	 */
+	private static final int MAX_MISSING_IDS = 256;
 
 	private final String extensionId;
 	
@@ -62,9 +271,43 @@ public abstract class IdentifiableExtension<T extends IdentifiableExtension.Iden
 	
 	private final boolean sortIfPossible;
 	
-	private final Map<String, T> identifierCache = new HashMap<String, T>();
+	private final ElementCachePolicy cachePolicy;
+	
+	private final ConcurrentMap<String, T> identifierCache;
+	
+	private final AtomicLong hits = new AtomicLong();
 	
-	private Collection<T> cachedElements;
+	private final AtomicLong misses = new AtomicLong();
+	
+	private final AtomicLong evictions = new AtomicLong();
+	
+	/**
+	 * Locks for IDs whose elements are being created
+	 */
+	private final ConcurrentMap<String, Object> loadLocks = new ConcurrentHashMap<String, Object>();
+	
+	/**
+	 * The element index, <code>null</code> if not yet created
+	 */
+	private volatile ElementIndex index;
+	
+	/**
+	 * The listener discarding the index, guarded by {@link #updateLock}
+	 */
+	private RegistryListener listener;
+	
+	/**
+	 * Lock for creating the index
+	 */
+	private final Object updateLock = new Object();
+	
+	/**
+	 * The number of times elements were removed from the extension point,
+	 * guarded by {@link #updateLock}
+	 */
+	private long removals = 0;
+	
+	private volatile boolean persistentIndex = false;
 	
 	/**
 	 * Create the extension and bind it to the given extension ID.
@@ -84,10 +327,61 @@ public abstract class IdentifiableExtension<T extends IdentifiableExtension.Iden
 	 */
 	public IdentifiableExtension(String extensionId, boolean cacheElements,
 			boolean sortIfPossible) {
+		this(extensionId, cacheElements, sortIfPossible, ElementCachePolicy.unbounded());
+	}
+	
+	/**
+	 * Create the extension and bind it to the given extension ID.
+	 * @param extensionId the extension ID
+	 * @param cacheElements if the result of {@link #getElements()} should be
+	 *   cached, only has an effect with an unbounded cache policy as the
+	 *   cached result retains all elements
+	 * @param sortIfPossible if sorting for {@link #getElements()} should be
+	 *   enabled, needs the elements implementing {@link Comparable}
+	 * @param cachePolicy the policy for retaining created elements
+	 */
+	public IdentifiableExtension(String extensionId, boolean cacheElements,
+			boolean sortIfPossible, ElementCachePolicy cachePolicy) {
 		super();
 		this.extensionId = extensionId;
-		this.cacheElements = cacheElements;
+		this.cacheElements = cacheElements && cachePolicy.isUnbounded();
 		this.sortIfPossible = sortIfPossible;
+		this.cachePolicy = cachePolicy;
+		this.identifierCache = cachePolicy.createMap(new MapEvictionListener<String, T>() {
+			
+			@Override
+			public void onEviction(String key, T value) {
+				evictions.incrementAndGet();
+			}
+		
+		});
+	}
+	
+	/**
+	 * Get the extension point ID
+	 * @return the extension point ID
+	 */
+	public String getExtensionId() {
+		return extensionId;
+	}
+	
+	/**
+	 * Get the policy for retaining created elements
+	 * @return the cache policy
+	 */
+	public ElementCachePolicy getCachePolicy() {
+		return cachePolicy;
+	}
+	
+	/**
+	 * Get the statistics of the element cache. Requests through
+	 * {@link #get(String)} and {@link #getElements()} are counted unless
+	 * the result of {@link #getElements()} is cached.
+	 * @return the cache statistics
+	 */
+	public CacheStatistics getCacheStatistics() {
+		return new CacheStatistics(hits.get(), misses.get(), evictions.get(),
+				identifierCache.size());
 	}
 	
 	/**
@@ -95,7 +389,125 @@ public abstract class IdentifiableExtension<T extends IdentifiableExtension.Iden
 	 * @return the name of the ID attribute
 	 */
 	protected abstract String getIdAttributeName();
+	
+	/**
+	 * Get the name of the attribute holding a display name for an element.
+	 * Used for {@link #getDefinitions()}, the default implementation
+	 * returns <code>null</code>.
+	 * @return the name of the name attribute or <code>null</code>
+	 */
+	protected String getNameAttributeName() {
+		return null;
+	}
+	
+	/**
+	 * Get the extension registry the elements are read from
+	 * @return the extension registry, by default the platform registry
+	 */
+	protected IExtensionRegistry getExtensionRegistry() {
+		return Platform.getExtensionRegistry();
+	}
+	
+	/**
+	 * @return if the element definitions are stored in a persistent index
+	 */
+	public boolean isPersistentIndex() {
+		return persistentIndex;
+	}
+	
+	/**
+	 * Set if the element definitions should be stored in a persistent
+	 * {@link ExtensionIndex}. If enabled, {@link #getDefinitions()} is
+	 * served from the index as long as the contributing bundles don't
+	 * change.
+	 * @param persistentIndex if a persistent index should be used
+	 */
+	public void setPersistentIndex(boolean persistentIndex) {
+		this.persistentIndex = persistentIndex;
+	}
+	
+	/**
+	 * Get the definitions of all elements, i.e. their IDs, display names
+	 * and contributors, without creating the elements.
+	 * @return the element definitions, sorted by display name
+	 * @see #setPersistentIndex(boolean)
+	 */
+	public List<IndexedDefinition> getDefinitions() {
+		String fingerprint = null;
+		if (persistentIndex) {
+			fingerprint = ExtensionIndex.getFingerprint(getExtensionRegistry(), extensionId);
+			List<IndexedDefinition> indexed = ExtensionIndex.load(extensionId, fingerprint);
+			if (indexed != null) {
+				return indexed;
+			}
+		}
+		
+		IConfigurationElement[] elements = getExtensionRegistry().getConfigurationElementsFor(extensionId);
+		
+		List<IndexedDefinition> result = new ArrayList<IndexedDefinition>();
+		String nameAttribute = getNameAttributeName();
+		for (IConfigurationElement element : elements) {
+			String elementId = element.getAttribute(getIdAttributeName());
+			if (elementId != null) {
+				String name = (nameAttribute == null) ? (null) : (element.getAttribute(nameAttribute));
+				result.add(new IndexedDefinition(elementId, name, 0, null, null,
+						element.getContributor().getName()));
+			}
+		}
+		Collections.sort(result);
+		
+		if (persistentIndex) {
+			ExtensionIndex.store(extensionId, fingerprint, result);
+		}
+		
+		return result;
+	}
 
+	/**
+	 * Get the element index, it is created if necessary
+	 * 
+	 * @return the element index
+	 */
+	private ElementIndex getIndex() {
+		ElementIndex result = index;
+		if (result == null) {
+			synchronized (updateLock) {
+				result = index;
+				if (result == null) {
+					IExtensionRegistry registry = getExtensionRegistry();
+					
+					// register the listener before reading the elements so
+					// no change is missed
+					if (listener == null) {
+						listener = new RegistryListener(this, registry);
+						listener.register(extensionId);
+					}
+					
+					result = new ElementIndex(registry.getConfigurationElementsFor(extensionId),
+							getIdAttributeName(), removals);
+					index = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Discard the element index after the extension point has changed
+	 * 
+	 * @param removed if elements may have been removed, in that case the
+	 *   created elements are discarded as well
+	 */
+	private void invalidate(boolean removed) {
+		synchronized (updateLock) {
+			index = null;
+			if (removed) {
+				removals++;
+				identifierCache.clear();
+			}
+		}
+	}
+	
 	/**
 	 * Get the element with the given ID
 	 * @param id the element ID
@@ -103,27 +515,99 @@ public abstract class IdentifiableExtension<T extends IdentifiableExtension.Iden
 	 */
 	public T get(String id) {
 		// first try the cache
-		T result = identifierCache.get(id);
+		T result = lookup(id);
 		
 		if (result == null) {
-			// then search the configuration
-			IConfigurationElement[] elements = Platform.getExtensionRegistry().getConfigurationElementsFor(extensionId);
+			// then look up the configuration element
+			ElementIndex current = getIndex();
+			if (current.isMissing(id)) {
+				return null;
+			}
 			
-			for (IConfigurationElement element : elements) {
-				String elementId = element.getAttribute(getIdAttributeName());
-				if (id.equals(elementId)) {
-					result = create(elementId, element);
+			List<IConfigurationElement> candidates = current.byId.get(id);
+			if (candidates == null) {
+				current.addMissing(id);
+				return null;
+			}
+			
+			result = load(current, id, candidates);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Get an element from the cache and record the cache hit or miss
+	 * @param elementId the element ID
+	 * @return the cached element or <code>null</code>
+	 */
+	private T lookup(String elementId) {
+		T result = identifierCache.get(elementId);
+		if (result != null) {
+			hits.incrementAndGet();
+		}
+		else {
+			misses.incrementAndGet();
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the element for an ID from the cache or create it, the candidate
+	 * configuration elements are tried in order until an element can be
+	 * created
+	 * @param current the element index the candidates were taken from
+	 * @param elementId the element ID
+	 * @param candidates the configuration elements with the ID
+	 * @return the element value or <code>null</code>
+	 */
+	private T load(ElementIndex current, String elementId,
+			List<IConfigurationElement> candidates) {
+		T result = identifierCache.get(elementId);
+		if (result != null) {
+			return result;
+		}
+		
+		Object lock = new Object();
+		Object existing = loadLocks.putIfAbsent(elementId, lock);
+		if (existing != null) {
+			lock = existing;
+		}
+		
+		try {
+			synchronized (lock) {
+				// another thread may have created the element meanwhile
+				result = identifierCache.get(elementId);
+				for (int i = 0; result == null && i < candidates.size(); i++) {
+					result = create(elementId, candidates.get(i));
 					if (result != null) {
-						identifierCache.put(result.getId(), result);
-						return result;
+						cache(current, result);
 					}
 				}
 			}
+		} finally {
+			loadLocks.remove(elementId, lock);
 		}
-		
 		return result;
 	}
 	
+	/**
+	 * Add a created element to the cache, unless elements were removed from
+	 * the extension point since the index was created
+	 * @param current the element index the element was created from
+	 * @param element the element
+	 */
+	private void cache(ElementIndex current, T element) {
+		String elementId = element.getId();
+		if (elementId != null) {
+			synchronized (updateLock) {
+				if (current.generation == removals) {
+					identifierCache.put(elementId, element);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Create an object for the given configuration element
 	 * @param elementId the element ID
@@ -136,21 +620,53 @@ public abstract class IdentifiableExtension<T extends IdentifiableExtension.Iden
 	 * Get all elements
 	 * @return the elements
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("unchecked")
 	public Collection<T> getElements() {
-		if (cachedElements != null) {
-			return cachedElements;
-		}
+		ElementIndex current = getIndex();
 		
-		IConfigurationElement[] elements = Platform.getExtensionRegistry().getConfigurationElementsFor(extensionId);
+		if (!cacheElements) {
+			return createElements(current);
+		}
 		
+		List<T> result = (List<T>) current.all;
+		if (result == null) {
+			synchronized (current) {
+				result = (List<T>) current.all;
+				if (result == null) {
+					result = createElements(current);
+					current.all = result;
+				}
+			}
+		}
+		return new ArrayList<T>(result);
+	}
+	
+	/**
+	 * Create the elements for all configuration elements in the index
+	 * @param current the element index
+	 * @return the elements, sorted if possible and enabled
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private List<T> createElements(ElementIndex current) {
 		List<T> result = new ArrayList<T>();
 		
-		for (IConfigurationElement element : elements) {
+		for (IConfigurationElement element : current.elements) {
 			String elementId = element.getAttribute(getIdAttributeName());
-			T val = create(elementId, element);
+			T val;
+			if (elementId != null && current.byId.get(elementId).get(0) == element) {
+				// reuse elements created by get
+				val = lookup(elementId);
+				if (val == null) {
+					val = load(current, elementId, Collections.singletonList(element));
+				}
+			}
+			else {
+				val = create(elementId, element);
+				if (val != null) {
+					cache(current, val);
+				}
+			}
 			if (val != null) {
-				identifierCache.put(val.getId(), val);
 				result.add(val);
 			}
 		}
@@ -177,10 +693,6 @@ public abstract class IdentifiableExtension<T extends IdentifiableExtension.Iden
 			}
 		}
 		
-		if (cacheElements) {
-			cachedElements = result;
-		}
-		
 		return result;
 	}
 